@@ -0,0 +1,271 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.pureperfect.jetpack.json.JSON;
+
+/**
+ * Checks for mapped fields on objects by looking for the {@link JSON}
+ * annotation on getter methods. The rules are the same as for the
+ * {@link AnnotationReader}, but the mapped getters of a class and their field
+ * names are only worked out the first time an instance of that class is read.
+ * After that, reading an object only invokes the getters.
+ * 
+ * <p>
+ * When fields are passed to a {@link FieldVisitor}, the getters are called
+ * through {@link MethodHandle MethodHandles} typed to their return types, so
+ * primitive values are not boxed.
+ * </p>
+ * 
+ * <p>
+ * The metadata is kept per instance of this class in a {@link ClassValue}, so
+ * an instance is safe to share between threads and between {@link Output
+ * Outputs}.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ * @see JSON
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class CachingAnnotationReader implements TypedFieldReader
+{
+	private static final Object[] NO_ARGS = new Object[] {};
+
+	private final Class<? extends Annotation> annot;
+
+	private final ClassValue<Getter[]> getters = new ClassValue<Getter[]>()
+	{
+		@Override
+		protected Getter[] computeValue(final Class<?> type)
+		{
+			final Method[] methods = MappedMethods.find(type,
+					CachingAnnotationReader.this.annot);
+
+			final Getter[] result = new Getter[methods.length];
+
+			for (int i = 0; i < methods.length; ++i)
+			{
+				result[i] = new Getter(methods[i]);
+			}
+
+			return result;
+		}
+	};
+
+	public CachingAnnotationReader(Class annotation)
+	{
+		this.annot = annotation;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Field> read(final Object o)
+	{
+		return new Iter(o, this.getters.get(o.getClass()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean accept(final Object o, final FieldVisitor visitor)
+			throws IOException
+	{
+		final Getter[] getters = this.getters.get(o.getClass());
+
+		for (final Getter g : getters)
+		{
+			if (g.handle == null)
+			{
+				throw new SerializeException(g.error);
+			}
+
+			try
+			{
+				switch (g.kind)
+				{
+					case MappedMethods.INT:
+						visitor.onInt(g.name, (int) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.LONG:
+						visitor.onLong(g.name, (long) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.DOUBLE:
+						visitor.onDouble(g.name,
+								(double) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.BOOLEAN:
+						visitor.onBoolean(g.name,
+								(boolean) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.FLOAT:
+						visitor.onFloat(g.name, (float) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.SHORT:
+						visitor.onShort(g.name, (short) g.handle.invokeExact(o));
+						break;
+					case MappedMethods.BYTE:
+						visitor.onByte(g.name, (byte) g.handle.invokeExact(o));
+						break;
+					default:
+						visitor.onObject(g.name,
+								(Object) g.handle.invokeExact(o));
+				}
+			}
+			catch (final IOException e)
+			{
+				throw e;
+			}
+			catch (final SerializeException e)
+			{
+				throw e;
+			}
+			catch (final Throwable e)
+			{
+				throw new SerializeException(e);
+			}
+		}
+
+		return getters.length > 0;
+	}
+
+	/**
+	 * A mapped getter and the name of the field it is written as. The handle
+	 * takes an <code>Object</code> and returns the type of the getter, or
+	 * <code>Object</code> if that is not a primitive, and ignores the object
+	 * for a static getter. It is <code>null</code> if the getter is not
+	 * accessible or takes parameters.
+	 */
+	private static final class Getter
+	{
+		final Method method;
+
+		final String name;
+
+		final int kind;
+
+		final MethodHandle handle;
+
+		final Throwable error;
+
+		Getter(final Method method)
+		{
+			this.method = method;
+			this.name = MappedMethods.fieldName(method);
+			this.kind = MappedMethods.kind(method);
+
+			MethodHandle h = null;
+			Throwable failure = null;
+
+			try
+			{
+				final Class<?> returnType = this.kind == MappedMethods.OBJECT ? Object.class
+						: method.getReturnType();
+
+				h = MethodHandles.lookup().unreflect(method);
+
+				if (Modifier.isStatic(method.getModifiers()))
+				{
+					h = MethodHandles.dropArguments(h, 0, Object.class);
+				}
+
+				if (h.type().parameterCount() == 1)
+				{
+					h = h.asType(MethodType.methodType(returnType, Object.class));
+				}
+				else
+				{
+					h = null;
+					failure = new IllegalArgumentException(method
+							+ " is not a getter: it takes parameters");
+				}
+			}
+			catch (final IllegalAccessException e)
+			{
+				failure = e;
+			}
+
+			this.handle = h;
+			this.error = failure;
+		}
+	}
+
+	private static final class Iter implements Iterator<Field>
+	{
+		private final Object o;
+
+		private final Getter[] getters;
+
+		private int i;
+
+		Iter(final Object o, final Getter[] getters)
+		{
+			this.o = o;
+			this.getters = getters;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.i < this.getters.length;
+		}
+
+		@Override
+		public Field next()
+		{
+			if (this.i >= this.getters.length)
+			{
+				throw new NoSuchElementException();
+			}
+
+			final Getter g = this.getters[this.i++];
+
+			if (g.handle == null)
+			{
+				throw new SerializeException(g.error);
+			}
+
+			try
+			{
+				return new Field(g.name, g.method.invoke(this.o, NO_ARGS));
+			}
+			catch (final Exception e)
+			{
+				throw new SerializeException(e);
+			}
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+import java.io.IOException;
+
+/**
+ * Receives the mapped fields of an object from a {@link TypedFieldReader}.
+ * Fields of primitive types are passed as primitives, so they do not have to
+ * be boxed into a {@link Field}. Fields of any other type, including
+ * <code>char</code>, are passed to {@link #onObject(CharSequence, Object)}.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public interface FieldVisitor
+{
+	/**
+	 * Visit a boolean field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onBoolean(CharSequence name, boolean value) throws IOException;
+
+	/**
+	 * Visit a byte field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onByte(CharSequence name, byte value) throws IOException;
+
+	/**
+	 * Visit a double field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onDouble(CharSequence name, double value) throws IOException;
+
+	/**
+	 * Visit a float field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onFloat(CharSequence name, float value) throws IOException;
+
+	/**
+	 * Visit an integer field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onInt(CharSequence name, int value) throws IOException;
+
+	/**
+	 * Visit a long field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onLong(CharSequence name, long value) throws IOException;
+
+	/**
+	 * Visit a field that is not a primitive.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onObject(CharSequence name, Object value) throws IOException;
+
+	/**
+	 * Visit a short field.
+	 * 
+	 * @param name
+	 *            the name of the field.
+	 * @param value
+	 *            the value of the field.
+	 * @throws IOException
+	 *             if the field cannot be written.
+	 */
+	public void onShort(CharSequence name, short value) throws IOException;
+}
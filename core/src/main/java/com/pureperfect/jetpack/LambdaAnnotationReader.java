@@ -0,0 +1,413 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandleProxies;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import com.pureperfect.jetpack.json.JSON;
+
+/**
+ * Checks for mapped fields on objects by looking for the {@link JSON}
+ * annotation on getter methods. The rules are the same as for the
+ * {@link AnnotationReader}.
+ * 
+ * <p>
+ * The first time a class is read, each of its mapped getters is turned into a
+ * {@link Function} with the {@link LambdaMetafactory}. Later reads call the
+ * functions, which the JIT can inline like a direct call to the getter, so
+ * there are no reflective access checks on the hot path. Getters of classes
+ * that are not visible to the class loader of this class are called through a
+ * {@link MethodHandle} instead.
+ * </p>
+ * 
+ * <p>
+ * Getters returning primitives are turned into the matching primitive
+ * functional interface, e.g. {@link ToIntFunction}, so their values are only
+ * boxed when they are read as {@link Field Fields}, not when they are passed to
+ * a {@link FieldVisitor}.
+ * </p>
+ * 
+ * <p>
+ * Only public getters of public classes can be mapped. Like the
+ * {@link CachingAnnotationReader}, an instance of this class is safe to share
+ * between threads.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ * @see JSON
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class LambdaAnnotationReader implements TypedFieldReader
+{
+	private static final MethodType APPLY = MethodType.methodType(
+			Object.class, Object.class);
+
+	private final Class<? extends Annotation> annot;
+
+	private final ClassValue<Accessors> accessors = new ClassValue<Accessors>()
+	{
+		@Override
+		protected Accessors computeValue(final Class<?> type)
+		{
+			return new Accessors(MappedMethods.find(type,
+					LambdaAnnotationReader.this.annot));
+		}
+	};
+
+	public LambdaAnnotationReader(Class annotation)
+	{
+		this.annot = annotation;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Field> read(final Object o)
+	{
+		final Accessors a = this.accessors.get(o.getClass());
+
+		if (a.error != null)
+		{
+			throw new SerializeException(a.error);
+		}
+
+		return new Iter(o, a);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean accept(final Object o, final FieldVisitor visitor)
+			throws IOException
+	{
+		final Accessors a = this.accessors.get(o.getClass());
+
+		if (a.error != null)
+		{
+			throw new SerializeException(a.error);
+		}
+
+		final String[] names = a.names;
+		final Object[] getters = a.getters;
+		final int[] kinds = a.kinds;
+
+		for (int i = 0; i < getters.length; ++i)
+		{
+			final Object g = getters[i];
+
+			try
+			{
+				switch (kinds[i])
+				{
+					case MappedMethods.INT:
+						visitor.onInt(names[i], ((ToIntFunction) g)
+								.applyAsInt(o));
+						break;
+					case MappedMethods.LONG:
+						visitor.onLong(names[i], ((ToLongFunction) g)
+								.applyAsLong(o));
+						break;
+					case MappedMethods.DOUBLE:
+						visitor.onDouble(names[i], ((ToDoubleFunction) g)
+								.applyAsDouble(o));
+						break;
+					case MappedMethods.BOOLEAN:
+						visitor.onBoolean(names[i], ((Predicate) g).test(o));
+						break;
+					case MappedMethods.FLOAT:
+						visitor.onFloat(names[i], (float) ((ToDoubleFunction) g)
+								.applyAsDouble(o));
+						break;
+					case MappedMethods.SHORT:
+						visitor.onShort(names[i], (short) ((ToIntFunction) g)
+								.applyAsInt(o));
+						break;
+					case MappedMethods.BYTE:
+						visitor.onByte(names[i], (byte) ((ToIntFunction) g)
+								.applyAsInt(o));
+						break;
+					default:
+						visitor.onObject(names[i], ((Function) g).apply(o));
+				}
+			}
+			catch (final SerializeException e)
+			{
+				throw e;
+			}
+			catch (final RuntimeException e)
+			{
+				throw new SerializeException(e);
+			}
+		}
+
+		return getters.length > 0;
+	}
+
+	/**
+	 * Build a function calling the given getter. The function implements the
+	 * functional interface for the kind of the getter, e.g.
+	 * {@link ToIntFunction} for {@link MappedMethods#INT}.
+	 */
+	private static Object accessor(final Method m, final int kind)
+			throws IllegalAccessException, LambdaConversionException
+	{
+		final Class<?> iface;
+		final String name;
+		final MethodType sam;
+
+		switch (kind)
+		{
+			case MappedMethods.INT:
+			case MappedMethods.SHORT:
+			case MappedMethods.BYTE:
+				iface = ToIntFunction.class;
+				name = "applyAsInt";
+				sam = MethodType.methodType(int.class, Object.class);
+				break;
+			case MappedMethods.LONG:
+				iface = ToLongFunction.class;
+				name = "applyAsLong";
+				sam = MethodType.methodType(long.class, Object.class);
+				break;
+			case MappedMethods.DOUBLE:
+			case MappedMethods.FLOAT:
+				iface = ToDoubleFunction.class;
+				name = "applyAsDouble";
+				sam = MethodType.methodType(double.class, Object.class);
+				break;
+			case MappedMethods.BOOLEAN:
+				iface = Predicate.class;
+				name = "test";
+				sam = MethodType.methodType(boolean.class, Object.class);
+				break;
+			default:
+				iface = Function.class;
+				name = "apply";
+				sam = APPLY;
+		}
+
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		final MethodHandle getter = lookup.unreflect(m);
+
+		final Class<?> owner = m.getDeclaringClass();
+
+		if (Modifier.isStatic(m.getModifiers()))
+		{
+			return MethodHandleProxies.asInterfaceInstance(iface,
+					MethodHandles.dropArguments(getter, 0, Object.class)
+							.asType(sam));
+		}
+
+		if (isVisible(owner))
+		{
+			final MethodType instantiated = kind == MappedMethods.OBJECT ? MethodType
+					.methodType(m.getReturnType(), owner).wrap()
+					: sam.changeParameterType(0, owner);
+
+			final MethodHandle factory = LambdaMetafactory.metafactory(
+					lookup, name, MethodType.methodType(iface), sam, getter,
+					instantiated).getTarget();
+
+			try
+			{
+				return factory.invoke();
+			}
+			catch (final RuntimeException e)
+			{
+				throw e;
+			}
+			catch (final Error e)
+			{
+				throw e;
+			}
+			catch (final Throwable e)
+			{
+				throw new LambdaConversionException(e);
+			}
+		}
+
+		return MethodHandleProxies.asInterfaceInstance(iface,
+				getter.asType(sam));
+	}
+
+	/**
+	 * The generated function refers to the getter by name, so the class
+	 * declaring it has to resolve from our class loader.
+	 */
+	private static boolean isVisible(final Class<?> type)
+	{
+		try
+		{
+			return Class.forName(type.getName(), false,
+					LambdaAnnotationReader.class.getClassLoader()) == type;
+		}
+		catch (final ClassNotFoundException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * The field names and getter functions of one class.
+	 */
+	private static final class Accessors
+	{
+		final String[] names;
+
+		final Object[] getters;
+
+		final int[] kinds;
+
+		final Throwable error;
+
+		Accessors(final Method[] methods)
+		{
+			this.names = new String[methods.length];
+			this.getters = new Object[methods.length];
+			this.kinds = new int[methods.length];
+
+			Throwable failure = null;
+
+			try
+			{
+				for (int i = 0; i < methods.length; ++i)
+				{
+					if (methods[i].getParameterTypes().length > 0)
+					{
+						failure = new IllegalArgumentException(methods[i]
+								+ " is not a getter: it takes parameters");
+						break;
+					}
+
+					this.names[i] = MappedMethods.fieldName(methods[i]);
+					this.kinds[i] = MappedMethods.kind(methods[i]);
+					this.getters[i] = accessor(methods[i], this.kinds[i]);
+				}
+			}
+			catch (final IllegalAccessException e)
+			{
+				failure = e;
+			}
+			catch (final LambdaConversionException e)
+			{
+				failure = e;
+			}
+
+			this.error = failure;
+		}
+
+		/**
+		 * Call a getter, boxing primitive values.
+		 */
+		Object get(final int i, final Object o)
+		{
+			final Object g = this.getters[i];
+
+			switch (this.kinds[i])
+			{
+				case MappedMethods.INT:
+					return ((ToIntFunction) g).applyAsInt(o);
+				case MappedMethods.LONG:
+					return ((ToLongFunction) g).applyAsLong(o);
+				case MappedMethods.DOUBLE:
+					return ((ToDoubleFunction) g).applyAsDouble(o);
+				case MappedMethods.BOOLEAN:
+					return ((Predicate) g).test(o);
+				case MappedMethods.FLOAT:
+					return (float) ((ToDoubleFunction) g).applyAsDouble(o);
+				case MappedMethods.SHORT:
+					return (short) ((ToIntFunction) g).applyAsInt(o);
+				case MappedMethods.BYTE:
+					return (byte) ((ToIntFunction) g).applyAsInt(o);
+				default:
+					return ((Function) g).apply(o);
+			}
+		}
+	}
+
+	private static final class Iter implements Iterator<Field>
+	{
+		private final Object o;
+
+		private final Accessors a;
+
+		private int i;
+
+		Iter(final Object o, final Accessors a)
+		{
+			this.o = o;
+			this.a = a;
+		}
+
+		@Override
+		public boolean hasNext()
+		{
+			return this.i < this.a.getters.length;
+		}
+
+		@Override
+		public Field next()
+		{
+			if (this.i >= this.a.getters.length)
+			{
+				throw new NoSuchElementException();
+			}
+
+			final int index = this.i++;
+
+			try
+			{
+				return new Field(this.a.names[index], this.a
+						.get(index, this.o));
+			}
+			catch (final SerializeException e)
+			{
+				throw e;
+			}
+			catch (final RuntimeException e)
+			{
+				throw new SerializeException(e);
+			}
+		}
+
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
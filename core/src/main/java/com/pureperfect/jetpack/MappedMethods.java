@@ -0,0 +1,151 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the annotated getters of a class for the caching field readers.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class MappedMethods
+{
+	static final int OBJECT = 0;
+
+	static final int BOOLEAN = 1;
+
+	static final int BYTE = 2;
+
+	static final int SHORT = 3;
+
+	static final int INT = 4;
+
+	static final int LONG = 5;
+
+	static final int FLOAT = 6;
+
+	static final int DOUBLE = 7;
+
+	/**
+	 * Orders getters by field name, the order compiled and generated
+	 * serializers write them in.
+	 */
+	private static final Comparator<Method> BY_FIELD_NAME = Comparator
+			.comparing(MappedMethods::fieldName);
+
+	private MappedMethods()
+	{
+		// hide me
+	}
+
+	/**
+	 * Get the declared methods of a type carrying the given annotation, sorted
+	 * by field name. {@link Class#getDeclaredMethods()} returns methods in no
+	 * particular order, so they are sorted to write the fields in the same
+	 * order as the serializers compiled by the annotation processor.
+	 * 
+	 * @param type
+	 *            the type to inspect
+	 * @param annot
+	 *            the annotation marking mapped getters
+	 * @return the mapped getters
+	 */
+	static Method[] find(final Class<?> type,
+			final Class<? extends Annotation> annot)
+	{
+		final Method[] methods = type.getDeclaredMethods();
+
+		final List<Method> result = new ArrayList<Method>(methods.length);
+
+		for (final Method m : methods)
+		{
+			if (m.getDeclaredAnnotation(annot) != null)
+			{
+				result.add(m);
+			}
+		}
+
+		result.sort(BY_FIELD_NAME);
+
+		return result.toArray(new Method[result.size()]);
+	}
+
+	/**
+	 * Get the name of the field for a getter, e.g. "name" for "getName()".
+	 * 
+	 * @param m
+	 *            the getter
+	 * @return the field name
+	 */
+	static String fieldName(final Method m)
+	{
+		final String methodName = m.getName();
+
+		return Character.toLowerCase(methodName.charAt(3))
+				+ methodName.substring(4);
+	}
+
+	/**
+	 * Get the kind of value a getter returns, i.e. which method of a
+	 * {@link FieldVisitor} it is passed to.
+	 * 
+	 * @param m
+	 *            the getter
+	 * @return one of the kind constants of this class
+	 */
+	static int kind(final Method m)
+	{
+		final Class<?> type = m.getReturnType();
+
+		if (type == int.class)
+		{
+			return INT;
+		}
+		else if (type == long.class)
+		{
+			return LONG;
+		}
+		else if (type == double.class)
+		{
+			return DOUBLE;
+		}
+		else if (type == boolean.class)
+		{
+			return BOOLEAN;
+		}
+		else if (type == float.class)
+		{
+			return FLOAT;
+		}
+		else if (type == short.class)
+		{
+			return SHORT;
+		}
+		else if (type == byte.class)
+		{
+			return BYTE;
+		}
+
+		return OBJECT;
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+/**
+ * Formats numbers directly into a character buffer. This is a companion to
+ * {@link TypeConverter}: an {@link Output} whose {@link TypeConverter} is also a
+ * {@link TypeWriter} formats numbers into a buffer it reuses, so no string is
+ * created for each number. The characters written must be the same as the
+ * ones returned by the matching {@link TypeConverter} method.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public interface TypeWriter
+{
+	/**
+	 * The most characters written by any method of this interface. Callers
+	 * must leave at least this many characters free after the offset.
+	 */
+	public static final int MAX_LENGTH = 32;
+
+	/**
+	 * Write a double to a buffer.
+	 * 
+	 * @param d
+	 *            the value to write
+	 * @param buf
+	 *            the buffer to write to
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	public int write(double d, char[] buf, int offset);
+
+	/**
+	 * Write a float to a buffer.
+	 * 
+	 * @param f
+	 *            the value to write
+	 * @param buf
+	 *            the buffer to write to
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	public int write(float f, char[] buf, int offset);
+
+	/**
+	 * Write an integer to a buffer.
+	 * 
+	 * @param i
+	 *            the value to write
+	 * @param buf
+	 *            the buffer to write to
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	public int write(int i, char[] buf, int offset);
+
+	/**
+	 * Write a long to a buffer.
+	 * 
+	 * @param l
+	 *            the value to write
+	 * @param buf
+	 *            the buffer to write to
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	public int write(long l, char[] buf, int offset);
+}
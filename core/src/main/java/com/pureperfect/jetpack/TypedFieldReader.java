@@ -0,0 +1,45 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack;
+
+import java.io.IOException;
+
+/**
+ * A {@link FieldReader} that can also push the mapped fields of an object to a
+ * {@link FieldVisitor}. {@link Output Outputs} use this in preference to
+ * {@link #read(Object)}, since no {@link Field Fields} or iterators are created
+ * and primitive values are not boxed.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public interface TypedFieldReader extends FieldReader
+{
+	/**
+	 * Pass the mapped fields of the given object to a visitor, in the same
+	 * order they are returned by {@link #read(Object)}.
+	 * 
+	 * @param o
+	 *            the object to find mapped fields for.
+	 * @param visitor
+	 *            the visitor to pass the fields to.
+	 * @return <code>true</code> if the object has any mapped fields.
+	 * @throws IOException
+	 *             if the visitor fails to write a field.
+	 */
+	public boolean accept(Object o, FieldVisitor visitor) throws IOException;
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * An unsynchronized {@link Writer} for an {@link Appendable}. Characters are
+ * appended to a {@link StringBuilder} directly.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class AppendableWriter extends Writer
+{
+	private final Appendable out;
+
+	/*
+	 * The output if it is a StringBuilder, otherwise null.
+	 */
+	private final StringBuilder builder;
+
+	AppendableWriter(final Appendable out)
+	{
+		this.out = out;
+		this.builder = out instanceof StringBuilder ? (StringBuilder) out
+				: null;
+	}
+
+	@Override
+	public Writer append(final char c) throws IOException
+	{
+		this.out.append(c);
+		return this;
+	}
+
+	@Override
+	public Writer append(final CharSequence csq) throws IOException
+	{
+		this.out.append(csq);
+		return this;
+	}
+
+	@Override
+	public Writer append(final CharSequence csq, final int start,
+			final int end) throws IOException
+	{
+		this.out.append(csq, start, end);
+		return this;
+	}
+
+	@Override
+	public void write(final int c) throws IOException
+	{
+		this.out.append((char) c);
+	}
+
+	@Override
+	public void write(final char[] cbuf, final int off, final int len)
+			throws IOException
+	{
+		if (this.builder != null)
+		{
+			this.builder.append(cbuf, off, len);
+			return;
+		}
+
+		for (int i = off; i < off + len; ++i)
+		{
+			this.out.append(cbuf[i]);
+		}
+	}
+
+	@Override
+	public void write(final String str, final int off, final int len)
+			throws IOException
+	{
+		this.out.append(str, off, off + len);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		if (this.out instanceof Flushable)
+		{
+			((Flushable) this.out).flush();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		// the Appendable is not ours to close
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Encodes characters as UTF-8 like a {@link UTF8Writer}, and writes them to a
+ * channel through a {@link ByteBuffer}, which may be direct. A heap buffer that
+ * owns all of its backing array is encoded into directly, and is the default;
+ * for any other buffer the characters are encoded into an array of the same
+ * size, which is copied into the buffer in one bulk put before it is written.
+ * 
+ * <p>
+ * The whole buffer is used, whatever its position and limit. When it is
+ * written to the channel, its position and limit are set to the bytes being
+ * written. All of the buffer is written before encoding continues, so
+ * channels in non-blocking mode are rejected, and a channel that accepts no
+ * bytes at all is reported with an {@link IOException} rather than retried.
+ * </p>
+ * 
+ * <p>
+ * This class is not synchronized, and must only be used by one thread at a
+ * time.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class ByteBufferWriter extends UTF8Encoder
+{
+	private final WritableByteChannel out;
+
+	private final ByteBuffer buffer;
+
+	/*
+	 * Whether the buffer is backed by the array encoded into.
+	 */
+	private final boolean shared;
+
+	ByteBufferWriter(final WritableByteChannel out)
+	{
+		this(out, ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+	}
+
+	ByteBufferWriter(final WritableByteChannel out, final ByteBuffer buffer)
+	{
+		super(array(buffer));
+
+		if (out instanceof SelectableChannel
+				&& !((SelectableChannel) out).isBlocking())
+		{
+			throw new IllegalArgumentException(
+					"Channel is in non-blocking mode");
+		}
+
+		this.out = out;
+		this.buffer = buffer;
+		this.shared = buffer.hasArray() && buffer.array() == this.buf;
+
+		buffer.clear();
+	}
+
+	/**
+	 * Get the array to encode into: the one backing the buffer if the buffer
+	 * spans all of it, not a slice of it.
+	 */
+	private static byte[] array(final ByteBuffer buffer)
+	{
+		if (buffer.capacity() < 4)
+		{
+			throw new IllegalArgumentException("Buffer too small: "
+					+ buffer.capacity());
+		}
+
+		if (buffer.isReadOnly())
+		{
+			throw new IllegalArgumentException("Read only buffer");
+		}
+
+		if (buffer.hasArray() && buffer.arrayOffset() == 0
+				&& buffer.array().length == buffer.capacity())
+		{
+			return buffer.array();
+		}
+
+		return new byte[buffer.capacity()];
+	}
+
+	@Override
+	void drain(final byte[] b, int off, final int len) throws IOException
+	{
+		final ByteBuffer bb = this.buffer;
+
+		final int end = off + len;
+
+		while (off < end)
+		{
+			final int n = Math.min(end - off, bb.capacity());
+
+			if (this.shared && b == this.buf)
+			{
+				bb.limit(off + n);
+				bb.position(off);
+			}
+			else
+			{
+				bb.clear();
+				bb.put(b, off, n);
+				bb.flip();
+			}
+
+			while (bb.hasRemaining())
+			{
+				if (this.out.write(bb) == 0)
+				{
+					final int pending = bb.remaining() + end - off - n;
+
+					bb.clear();
+
+					throw new IOException("Channel accepted no bytes, "
+							+ pending + " bytes not written");
+				}
+			}
+
+			off += n;
+		}
+
+		bb.clear();
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		this.flushBuffer();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			this.endSurrogate();
+			this.flushBuffer();
+		}
+		finally
+		{
+			this.out.close();
+		}
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Scans UTF-8 encoded bytes without decoding them to characters first. All
+ * of the {@link JSON} syntax is ASCII, so the bytes are scanned as they are,
+ * and only strings are decoded. Strings that are all ASCII are copied to a
+ * {@link String} directly; other strings are checked to be valid UTF-8 while
+ * they are decoded. A byte order mark at the start of the input is skipped.
+ * 
+ * <p>
+ * The bytes are read from a buffer, which is refilled from a stream in large
+ * blocks, or replaced with the next block by {@link #refill()}.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+class ByteScanner extends JSONScanner
+{
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	private final InputStream in;
+
+	private ByteBuffer buf;
+
+	/*
+	 * The array backing the buffer, if it has one, and the index in it of the
+	 * start of the buffer.
+	 */
+	private byte[] array;
+
+	private int arrayOffset;
+
+	private int pos;
+
+	private int limit;
+
+	private boolean started;
+
+	private final StringBuilder scratch = new StringBuilder(64);
+
+	/*
+	 * Collects the characters of literals.
+	 */
+	private char[] spill = new char[32];
+
+	/**
+	 * Scan a stream, read in blocks of the given size.
+	 */
+	ByteScanner(final InputStream in, final int size)
+	{
+		this.in = in;
+		this.reset(ByteBuffer.wrap(new byte[Math.max(size, 1)]), 0, 0);
+	}
+
+	/**
+	 * Scan the remaining bytes of a buffer, without changing its position.
+	 */
+	ByteScanner(final ByteBuffer data)
+	{
+		this.in = null;
+		this.reset(data, data.position(), data.limit());
+	}
+
+	/**
+	 * Scan a buffer from <code>pos</code> to <code>limit</code>.
+	 */
+	final void reset(final ByteBuffer data, final int pos, final int limit)
+	{
+		this.buf = data;
+		this.array = data.hasArray() ? data.array() : null;
+		this.arrayOffset = this.array == null ? 0 : data.arrayOffset();
+		this.pos = pos;
+		this.limit = limit;
+	}
+
+	/**
+	 * Called when all of the buffer has been scanned. Reads the next block
+	 * from the stream, if scanning one.
+	 * 
+	 * @return <code>false</code> at the end of the input.
+	 */
+	boolean refill() throws IOException
+	{
+		if (this.in == null)
+		{
+			return false;
+		}
+
+		int n;
+
+		do
+		{
+			n = this.in.read(this.array, 0, this.array.length);
+		}
+		while (n == 0);
+
+		this.pos = 0;
+		this.limit = Math.max(n, 0);
+
+		return n > 0;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (this.in != null)
+		{
+			this.in.close();
+		}
+	}
+
+	private boolean fill() throws IOException
+	{
+		return this.pos < this.limit || this.refill();
+	}
+
+	@Override
+	int peek() throws IOException
+	{
+		if (!this.started)
+		{
+			this.started = true;
+			this.skipByteOrderMark();
+		}
+
+		while (true)
+		{
+			if (this.pos == this.limit && !this.fill())
+			{
+				return -1;
+			}
+
+			final int c = this.buf.get(this.pos) & 0xFF;
+
+			if (!JSONSyntax.isWhitespace(c))
+			{
+				return c;
+			}
+
+			++this.pos;
+		}
+	}
+
+	private void skipByteOrderMark() throws IOException
+	{
+		if (this.fill() && this.buf.get(this.pos) == (byte) 0xEF)
+		{
+			++this.pos;
+
+			if (this.next() != 0xBB || this.next() != 0xBF)
+			{
+				throw new MalformedJSONException("Invalid UTF-8");
+			}
+		}
+	}
+
+	@Override
+	void skip()
+	{
+		++this.pos;
+	}
+
+	/**
+	 * Get the next byte, as an unsigned value.
+	 */
+	private int next() throws IOException
+	{
+		if (this.pos == this.limit && !this.fill())
+		{
+			throw new MalformedJSONException("Unexpected end of input");
+		}
+
+		return this.buf.get(this.pos++) & 0xFF;
+	}
+
+	@Override
+	String readString() throws IOException
+	{
+		final ByteBuffer b = this.buf;
+
+		/*
+		 * Most strings are in the buffer, ASCII and have no escape sequences.
+		 */
+		for (int i = this.pos; i < this.limit; ++i)
+		{
+			final byte c = b.get(i);
+
+			if (c == '"')
+			{
+				final String result = this.ascii(i);
+
+				this.pos = i + 1;
+
+				return result;
+			}
+			else if (c == '\\' || c < 0)
+			{
+				break;
+			}
+		}
+
+		final StringBuilder value = this.scratch;
+
+		value.setLength(0);
+
+		while (true)
+		{
+			final int c = this.next();
+
+			if (c == '"')
+			{
+				return value.toString();
+			}
+			else if (c == '\\')
+			{
+				this.readEscape(value);
+			}
+			else if (c < 0x80)
+			{
+				value.append((char) c);
+			}
+			else
+			{
+				this.decode(c, value);
+			}
+		}
+	}
+
+	/**
+	 * Get the ASCII bytes from the position up to <code>end</code>.
+	 */
+	private String ascii(final int end)
+	{
+		if (this.array != null)
+		{
+			return new String(this.array, this.arrayOffset + this.pos, end
+					- this.pos, ISO_8859_1);
+		}
+
+		final int length = this.spill(0, end);
+
+		return new String(this.spill, 0, length);
+	}
+
+	/**
+	 * Decode a multi-byte sequence starting with <code>lead</code>.
+	 */
+	private void decode(final int lead, final StringBuilder value)
+			throws IOException
+	{
+		final int continuations = JSONSyntax.continuations(lead);
+
+		int code = JSONSyntax.leadBits(lead) << 6
+				| JSONSyntax.continuation(this.next(),
+						JSONSyntax.secondMin(lead), JSONSyntax.secondMax(lead));
+
+		for (int i = 1; i < continuations; ++i)
+		{
+			code = code << 6
+					| JSONSyntax.continuation(this.next(),
+							JSONSyntax.CONTINUATION_MIN,
+							JSONSyntax.CONTINUATION_MAX);
+		}
+
+		value.appendCodePoint(code);
+	}
+
+	/**
+	 * Decode an escape sequence after the backslash.
+	 */
+	private void readEscape(final StringBuilder value) throws IOException
+	{
+		int c = JSONSyntax.escape(this.next());
+
+		if (c == JSONSyntax.UNICODE)
+		{
+			c = 0;
+
+			for (int i = 0; i < 4; ++i)
+			{
+				c = c << 4 | JSONSyntax.hexDigit(this.next());
+			}
+		}
+
+		value.append((char) c);
+	}
+
+	@Override
+	void readLiteral() throws IOException
+	{
+		int length = 0;
+
+		while (true)
+		{
+			final ByteBuffer b = this.buf;
+
+			int i = this.pos;
+
+			while (i < this.limit && !JSONSyntax.isDelimiter(b.get(i) & 0xFF))
+			{
+				++i;
+			}
+
+			length = this.spill(length, i);
+
+			/*
+			 * Unless the literal continues in the next block.
+			 */
+			if (i < this.limit || !this.fill())
+			{
+				this.literal = this.spill;
+				this.literalOffset = 0;
+				this.literalLength = length;
+
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Append the buffer up to <code>end</code> to the spill, as ASCII.
+	 */
+	private int spill(final int length, final int end)
+	{
+		final int n = end - this.pos;
+
+		if (length + n > this.spill.length)
+		{
+			final char[] grown = new char[Math.max(this.spill.length * 2,
+					length + n)];
+
+			System.arraycopy(this.spill, 0, grown, 0, length);
+
+			this.spill = grown;
+		}
+
+		for (int i = 0; i < n; ++i)
+		{
+			this.spill[length + i] = (char) (this.buf.get(this.pos + i) & 0xFF);
+		}
+
+		this.pos = end;
+
+		return length + n;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.pureperfect.jetpack.CharacterFormatter;
+
+/**
+ * Format characters before writing to the output. Quotes, backslashes and
+ * slashes are escaped with a backslash, and control characters are written as
+ * their short escapes (e.g. <code>\n</code>) or as <code>\\u00XX</code>.
+ * 
+ * <p>
+ * The characters that need escaping are looked up in a table. Runs of
+ * characters between them are written with a single call to the writer
+ * instead of one call per character.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0
+ * @since 2.0
+ */
+class CharFormatter implements CharacterFormatter
+{
+	private static final CharFormatter defaultInstance = new CharFormatter();
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/*
+	 * The escape sequence for each ASCII character, or null if the character
+	 * is written as it is.
+	 */
+	private static final char[][] ESCAPES = new char[128][];
+
+	static
+	{
+		for (int c = 0; c < 0x20; ++c)
+		{
+			ESCAPES[c] = new char[] { '\\', 'u', '0', '0', HEX[c >> 4],
+					HEX[c & 0xF] };
+		}
+
+		ESCAPES['"'] = new char[] { '\\', '"' };
+		ESCAPES['\\'] = new char[] { '\\', '\\' };
+		ESCAPES['/'] = new char[] { '\\', '/' };
+		ESCAPES['\b'] = new char[] { '\\', 'b' };
+		ESCAPES['\f'] = new char[] { '\\', 'f' };
+		ESCAPES['\n'] = new char[] { '\\', 'n' };
+		ESCAPES['\r'] = new char[] { '\\', 'r' };
+		ESCAPES['\t'] = new char[] { '\\', 't' };
+	}
+
+	private CharFormatter()
+	{
+		// hide me
+	}
+
+	/**
+	 * Singleton.
+	 * 
+	 * @return Singleton
+	 */
+	public static final CharFormatter singleton()
+	{
+		return defaultInstance;
+	}
+
+	@Override
+	public void write(final CharSequence string, final Writer out)
+			throws IOException
+	{
+		if (string instanceof String)
+		{
+			write((String) string, out);
+			return;
+		}
+
+		int start = 0;
+
+		for (int j = 0, length = string.length(); j < length; ++j)
+		{
+			final char c = string.charAt(j);
+
+			if (c < 128 && ESCAPES[c] != null)
+			{
+				if (j > start)
+				{
+					out.append(string, start, j);
+				}
+
+				out.write(ESCAPES[c]);
+
+				start = j + 1;
+			}
+		}
+
+		if (start < string.length())
+		{
+			out.append(string, start, string.length());
+		}
+	}
+
+	/*
+	 * Writer.write(String, int, int) does not create a substring.
+	 */
+	private static void write(final String string, final Writer out)
+			throws IOException
+	{
+		final int length = string.length();
+
+		int start = 0;
+
+		for (int j = 0; j < length; ++j)
+		{
+			final char c = string.charAt(j);
+
+			if (c < 128 && ESCAPES[c] != null)
+			{
+				if (j > start)
+				{
+					out.write(string, start, j - start);
+				}
+
+				out.write(ESCAPES[c]);
+
+				start = j + 1;
+			}
+		}
+
+		if (start < length)
+		{
+			out.write(string, start, length - start);
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Scans characters read from a {@link Reader} in large blocks.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class CharScanner extends JSONScanner
+{
+	private final Reader in;
+
+	private final char[] buf;
+
+	private int pos;
+
+	private int limit;
+
+	/*
+	 * Collects strings that span more than one block or contain escape
+	 * sequences.
+	 */
+	private final StringBuilder scratch = new StringBuilder(64);
+
+	/*
+	 * Collects literals that span more than one block.
+	 */
+	private char[] spill = new char[32];
+
+	CharScanner(final Reader in, final int size)
+	{
+		this.in = in;
+		this.buf = new char[Math.max(size, 1)];
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.in.close();
+	}
+
+	/**
+	 * Read the next block into the buffer if all of it has been read.
+	 * 
+	 * @return <code>false</code> at the end of the input.
+	 */
+	private boolean fill() throws IOException
+	{
+		if (this.pos < this.limit)
+		{
+			return true;
+		}
+
+		int n;
+
+		do
+		{
+			n = this.in.read(this.buf, 0, this.buf.length);
+		}
+		while (n == 0);
+
+		this.pos = 0;
+		this.limit = Math.max(n, 0);
+
+		return n > 0;
+	}
+
+	@Override
+	int peek() throws IOException
+	{
+		while (true)
+		{
+			if (this.pos == this.limit && !this.fill())
+			{
+				return -1;
+			}
+
+			final char c = this.buf[this.pos];
+
+			if (!JSONSyntax.isWhitespace(c))
+			{
+				return c;
+			}
+
+			++this.pos;
+		}
+	}
+
+	@Override
+	void skip()
+	{
+		++this.pos;
+	}
+
+	@Override
+	String readString() throws IOException
+	{
+		final char[] b = this.buf;
+
+		/*
+		 * Most strings are in the buffer and have no escape sequences.
+		 */
+		for (int i = this.pos; i < this.limit; ++i)
+		{
+			final char c = b[i];
+
+			if (c == '"')
+			{
+				final String result = new String(b, this.pos, i - this.pos);
+
+				this.pos = i + 1;
+
+				return result;
+			}
+			else if (c == '\\')
+			{
+				break;
+			}
+		}
+
+		final StringBuilder value = this.scratch;
+
+		value.setLength(0);
+
+		while (true)
+		{
+			if (this.pos == this.limit && !this.fill())
+			{
+				throw new MalformedJSONException("Unterminated string");
+			}
+
+			int i = this.pos;
+
+			while (i < this.limit && b[i] != '"' && b[i] != '\\')
+			{
+				++i;
+			}
+
+			value.append(b, this.pos, i - this.pos);
+
+			this.pos = i;
+
+			if (i == this.limit)
+			{
+				continue;
+			}
+
+			++this.pos;
+
+			if (b[i] == '"')
+			{
+				return value.toString();
+			}
+
+			this.readEscape(value);
+		}
+	}
+
+	/**
+	 * Decode an escape sequence after the backslash.
+	 */
+	private void readEscape(final StringBuilder value) throws IOException
+	{
+		int c = JSONSyntax.escape(this.next());
+
+		if (c == JSONSyntax.UNICODE)
+		{
+			c = 0;
+
+			for (int i = 0; i < 4; ++i)
+			{
+				c = c << 4 | JSONSyntax.hexDigit(this.next());
+			}
+		}
+
+		value.append((char) c);
+	}
+
+	private char next() throws IOException
+	{
+		if (this.pos == this.limit && !this.fill())
+		{
+			throw new MalformedJSONException("Unexpected end of input");
+		}
+
+		return this.buf[this.pos++];
+	}
+
+	@Override
+	void readLiteral() throws IOException
+	{
+		final char[] b = this.buf;
+
+		int i = this.pos;
+
+		while (i < this.limit && !JSONSyntax.isDelimiter(b[i]))
+		{
+			++i;
+		}
+
+		if (i < this.limit)
+		{
+			this.literal = b;
+			this.literalOffset = this.pos;
+			this.literalLength = i - this.pos;
+
+			this.pos = i;
+
+			return;
+		}
+
+		/*
+		 * The literal continues in the next block.
+		 */
+		int length = 0;
+
+		while (true)
+		{
+			length = this.spill(length, i);
+
+			if (!this.fill())
+			{
+				break;
+			}
+
+			i = this.pos;
+
+			while (i < this.limit && !JSONSyntax.isDelimiter(b[i]))
+			{
+				++i;
+			}
+
+			if (i < this.limit)
+			{
+				length = this.spill(length, i);
+
+				break;
+			}
+		}
+
+		this.literal = this.spill;
+		this.literalOffset = 0;
+		this.literalLength = length;
+	}
+
+	/**
+	 * Append the buffer up to <code>end</code> to the spill.
+	 */
+	private int spill(final int length, final int end)
+	{
+		final int n = end - this.pos;
+
+		if (length + n > this.spill.length)
+		{
+			final char[] grown = new char[Math.max(this.spill.length * 2,
+					length + n)];
+
+			System.arraycopy(this.spill, 0, grown, 0, length);
+
+			this.spill = grown;
+		}
+
+		System.arraycopy(this.buf, this.pos, this.spill, length, n);
+
+		this.pos = end;
+
+		return length + n;
+	}
+}
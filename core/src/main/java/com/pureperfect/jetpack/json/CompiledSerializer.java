@@ -0,0 +1,41 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+/**
+ * A {@link JSONSerializer} written at compile time, usually by the Jetpack
+ * annotation processor. Implementations are registered as services in
+ * <code>META-INF/services/com.pureperfect.jetpack.json.CompiledSerializer</code>
+ * and are found with {@link java.util.ServiceLoader}. {@link JSONOut} uses them
+ * for objects of exactly the type they declare, ahead of its
+ * {@link com.pureperfect.jetpack.FieldReader}.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ * 
+ * @param <T>
+ *            the type of object written.
+ */
+public interface CompiledSerializer<T> extends JSONSerializer<T>
+{
+	/**
+	 * Get the type this serializer writes.
+	 * 
+	 * @return the type this serializer writes.
+	 */
+	public Class<T> getType();
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.WeakHashMap;
+
+/**
+ * Registry of the {@link CompiledSerializer CompiledSerializers} on the class
+ * path. A serializer is looked up with the class loader of the type it
+ * writes, which is the loader that sees the services registered next to the
+ * type. The services of each class loader are loaded the first time one of
+ * its types is written, and are kept until the loader is collected or memory
+ * runs low.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class CompiledSerializers
+{
+	private static final Map<ClassLoader, SoftReference<Map<Class<?>, JSONSerializer<Object>>>> loaders = new WeakHashMap<ClassLoader, SoftReference<Map<Class<?>, JSONSerializer<Object>>>>();
+
+	private CompiledSerializers()
+	{
+		// hide me
+	}
+
+	/**
+	 * Get the compiled serializer for a type.
+	 * 
+	 * @param type
+	 *            the type to write
+	 * @return the serializer, or <code>null</code> if there is none.
+	 */
+	static JSONSerializer<Object> forClass(final Class<?> type)
+	{
+		final ClassLoader loader = type.getClassLoader();
+
+		if (loader == null)
+		{
+			return null;
+		}
+
+		return serializers(loader).get(type);
+	}
+
+	private static Map<Class<?>, JSONSerializer<Object>> serializers(
+			final ClassLoader loader)
+	{
+		synchronized (loaders)
+		{
+			final SoftReference<Map<Class<?>, JSONSerializer<Object>>> ref = loaders
+					.get(loader);
+
+			Map<Class<?>, JSONSerializer<Object>> result = ref == null ? null
+					: ref.get();
+
+			if (result == null)
+			{
+				result = load(loader);
+
+				loaders.put(loader,
+						new SoftReference<Map<Class<?>, JSONSerializer<Object>>>(
+								result));
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Load the serializers registered with a class loader. An entry that
+	 * cannot be loaded, e.g. one left behind for a type that was renamed or
+	 * deleted, is skipped so that its type is written with reflection.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Map<Class<?>, JSONSerializer<Object>> load(
+			final ClassLoader loader)
+	{
+		final Map<Class<?>, JSONSerializer<Object>> result = new HashMap<Class<?>, JSONSerializer<Object>>();
+
+		final Iterator<CompiledSerializer> i = ServiceLoader.load(
+				CompiledSerializer.class, loader).iterator();
+
+		while (true)
+		{
+			final CompiledSerializer s;
+
+			final Class<?> type;
+
+			try
+			{
+				if (!i.hasNext())
+				{
+					break;
+				}
+
+				s = i.next();
+
+				type = s.getType();
+			}
+			catch (final ServiceConfigurationError e)
+			{
+				continue;
+			}
+			catch (final LinkageError e)
+			{
+				// The serializer was loaded but its type is gone.
+				continue;
+			}
+
+			if (!result.containsKey(type))
+			{
+				result.put(type, s);
+			}
+		}
+
+		return result.isEmpty() ? Collections
+				.<Class<?>, JSONSerializer<Object>> emptyMap() : result;
+	}
+}
@@ -16,6 +16,7 @@
  */
 package com.pureperfect.jetpack.json;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -260,28 +261,40 @@ public class JSONArray<T> implements JSONData, List<T>
 	@Override
 	public CharSequence toText(final TypeConverter converter)
 	{
-		final int size = this.size();
+		return JSONDataWriter.toText(this, converter);
+	}
 
-		final StringBuilder builder = new StringBuilder(512);
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final Appendable out) throws IOException
+	{
+		JSONDataWriter.write(this, out, JSONData.DEFAULT_TYPE_CONVERTER);
+	}
 
-		builder.append('[');
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final JSONOut out) throws IOException
+	{
+		out.writeRaw('[');
 
-		int i = 1;
+		boolean first = true;
 
 		for (final T value : this.values)
 		{
-			builder.append(converter.convert(value));
-
-			if (i < size)
+			if (!first)
 			{
-				builder.append(',');
+				out.writeRaw(',');
 			}
 
-			++i;
-		}
+			first = false;
 
-		builder.append(']');
+			out.write(value);
+		}
 
-		return builder;
+		out.writeRaw(']');
 	}
 }
@@ -16,10 +16,13 @@
  */
 package com.pureperfect.jetpack.json;
 
+import java.io.IOException;
+
 import com.pureperfect.jetpack.TypeConverter;
 
 /**
- * Represents data in JavaScript Object Notation.
+ * Represents data in JavaScript Object Notation. Strings and field names are
+ * escaped as they are by {@link JSONOut}.
  * 
  * @author J. Chris Folsom
  * @version 2.0
@@ -47,4 +50,39 @@ public interface JSONData
 	 * @return the {@link JSONData} as text.
 	 */
 	public CharSequence toText(TypeConverter converter);
+
+	/**
+	 * Write this data and everything in it to an {@link Appendable} in one
+	 * pass, using the default {@link TypeConverter}. By default this appends
+	 * {@link #toText()}, so implementations only need to override it to avoid
+	 * building the text first.
+	 * 
+	 * @param out
+	 *            the {@link Appendable} to write to.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @since 2.0.2
+	 */
+	public default void writeTo(final Appendable out) throws IOException
+	{
+		out.append(this.toText());
+	}
+
+	/**
+	 * Write this data and everything in it to a {@link JSONOut} in one pass,
+	 * with the settings of the {@link JSONOut}. This is what
+	 * {@link JSONOut#write(Object)} does for {@link JSONData}. By default this
+	 * writes the text returned by {@link #toText(TypeConverter)} for the
+	 * {@link TypeConverter} of the {@link JSONOut} as it is.
+	 * 
+	 * @param out
+	 *            the {@link JSONOut} to write to.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 * @since 2.0.2
+	 */
+	public default void writeTo(final JSONOut out) throws IOException
+	{
+		out.writeRaw(this.toText(out.getTypeConverter()));
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+
+import com.pureperfect.jetpack.SerializeException;
+import com.pureperfect.jetpack.TypeConverter;
+
+/**
+ * Writes {@link JSONData} to an {@link Appendable} in one pass, for the
+ * methods of the {@link JSONData} classes.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class JSONDataWriter
+{
+	private JSONDataWriter()
+	{
+		// hide me
+	}
+
+	/**
+	 * Write data to an {@link Appendable}.
+	 * 
+	 * @param data
+	 *            the data to write
+	 * @param out
+	 *            the {@link Appendable} to write to
+	 * @param converter
+	 *            the converter for values
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	static void write(final JSONData data, final Appendable out,
+			final TypeConverter converter) throws IOException
+	{
+		final JSONOut json = new JSONOut(new AppendableWriter(out));
+
+		json.setTypeConverter(converter);
+
+		data.writeTo(json);
+	}
+
+	/**
+	 * Write data to a new {@link StringBuilder}.
+	 * 
+	 * @param data
+	 *            the data to write
+	 * @param converter
+	 *            the converter for values
+	 * @return the text
+	 */
+	static CharSequence toText(final JSONData data,
+			final TypeConverter converter)
+	{
+		final StringBuilder result = new StringBuilder();
+
+		try
+		{
+			write(data, result, converter);
+		}
+		catch (final IOException e)
+		{
+			/*
+			 * Only from a serializer, a StringBuilder does not throw.
+			 */
+			throw new SerializeException(e);
+		}
+
+		return result;
+	}
+}
@@ -16,6 +16,8 @@
  */
 package com.pureperfect.jetpack.json;
 
+import java.io.IOException;
+
 import com.pureperfect.jetpack.TypeConverter;
 
 /**
@@ -111,55 +113,31 @@ public class JSONField implements JSONData
 	@Override
 	public CharSequence toText(final TypeConverter typeConverter)
 	{
-		/*
-		 * Get the value first to calculate length so we don't have to resize
-		 * the StringBuilder.
-		 */
-		CharSequence convertedValue = null;
-
-		/*
-		 * Use the TypeConverter if specified. If the TypeConverter is the
-		 * default TypeConverter, this if statement is merely a performance
-		 * tweak. The results should be the same but passing a JSONObject to the
-		 * default type converter will result in the creation of a String, so we
-		 * call toText instead.
-		 */
-		if (this.value instanceof JSONData)
-		{
-			convertedValue = ((JSONData) this.value).toText(typeConverter);
-		}
-		else
-		{
-			convertedValue = typeConverter.convert(this.value);
-		}
-
-		int length = convertedValue.length() + this.name.length();
-
-		StringBuilder builder = null;
+		return JSONDataWriter.toText(this, typeConverter);
+	}
 
-		if (this.value instanceof CharSequence)
-		{
-			length += 5;
-			builder = new StringBuilder(length);
-			builder.append('"');
-			builder.append(this.name);
-			builder.append('"');
-			builder.append(':');
-			builder.append('"');
-			builder.append(convertedValue);
-			builder.append('"');
-		}
-		else
-		{
-			length += 3;
-			builder = new StringBuilder(length);
-			builder.append('"');
-			builder.append(this.name);
-			builder.append('"');
-			builder.append(':');
-			builder.append(convertedValue);
-		}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final Appendable out) throws IOException
+	{
+		JSONDataWriter.write(this, out, JSONData.DEFAULT_TYPE_CONVERTER);
+	}
 
-		return builder;
+	/**
+	 * Write the name and value, separated by a colon.
+	 * 
+	 * @param out
+	 *            the {@link JSONOut} to write to.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void writeTo(final JSONOut out) throws IOException
+	{
+		out.writeString(this.name);
+		out.writeRaw(':');
+		out.write(this.value);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+import com.pureperfect.jetpack.Output;
+
+/**
+ * Writes {@link JSON} one token at a time, e.g.
+ * 
+ * <pre>
+ * gen.beginObject().name(&quot;id&quot;).value(23).name(&quot;tags&quot;).beginArray()
+ * 		.value(&quot;a&quot;).endArray().endObject();
+ * </pre>
+ * 
+ * The tokens are written straight to a {@link JSONOut}, so strings are
+ * formatted by its {@link com.pureperfect.jetpack.CharacterFormatter} and
+ * numbers by its {@link com.pureperfect.jetpack.TypeConverter}, and the output
+ * is the same as {@link JSONOut} writes for the same values. Commas and colons
+ * are placed by the generator, which only keeps the kind of each open object
+ * or array. Calls that would result in invalid {@link JSON}, e.g. a value in
+ * an object without a name, throw an {@link IllegalStateException}.
+ * 
+ * <p>
+ * Any number of values can be written at the top level. They are not
+ * separated.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONGenerator implements Output
+{
+	private static final int TOP = 0;
+
+	private static final int EMPTY_OBJECT = 1;
+
+	private static final int OBJECT = 2;
+
+	private static final int NAME = 3;
+
+	private static final int EMPTY_ARRAY = 4;
+
+	private static final int ARRAY = 5;
+
+	private final JSONOut out;
+
+	private int[] stack = new int[16];
+
+	private int depth;
+
+	/**
+	 * Create a new generator writing UTF-8 with a {@link JSONOut}.
+	 * 
+	 * @param out
+	 *            the output stream to write to.
+	 * @see JSONOut#JSONOut(OutputStream)
+	 */
+	public JSONGenerator(final OutputStream out)
+	{
+		this(new JSONOut(out));
+	}
+
+	/**
+	 * Create a new generator writing with a {@link JSONOut}.
+	 * 
+	 * @param out
+	 *            the writer to write to.
+	 */
+	public JSONGenerator(final Writer out)
+	{
+		this(new JSONOut(out));
+	}
+
+	/**
+	 * Create a new generator writing to a {@link JSONOut}.
+	 * 
+	 * @param out
+	 *            the output to write to.
+	 */
+	public JSONGenerator(final JSONOut out)
+	{
+		this.out = out;
+		this.stack[0] = TOP;
+	}
+
+	/**
+	 * Start an object.
+	 * 
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator beginObject() throws IOException
+	{
+		this.beforeValue();
+		this.push(EMPTY_OBJECT);
+		this.out.writeRaw('{');
+
+		return this;
+	}
+
+	/**
+	 * End the current object.
+	 * 
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator endObject() throws IOException
+	{
+		final int state = this.stack[this.depth];
+
+		if (state != EMPTY_OBJECT && state != OBJECT)
+		{
+			throw new IllegalStateException("Not in an object");
+		}
+
+		--this.depth;
+		this.out.writeRaw('}');
+
+		return this;
+	}
+
+	/**
+	 * Start an array.
+	 * 
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator beginArray() throws IOException
+	{
+		this.beforeValue();
+		this.push(EMPTY_ARRAY);
+		this.out.writeRaw('[');
+
+		return this;
+	}
+
+	/**
+	 * End the current array.
+	 * 
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator endArray() throws IOException
+	{
+		final int state = this.stack[this.depth];
+
+		if (state != EMPTY_ARRAY && state != ARRAY)
+		{
+			throw new IllegalStateException("Not in an array");
+		}
+
+		--this.depth;
+		this.out.writeRaw(']');
+
+		return this;
+	}
+
+	/**
+	 * Write the name of the next field of the current object.
+	 * 
+	 * @param name
+	 *            the name
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator name(final CharSequence name) throws IOException
+	{
+		final int state = this.stack[this.depth];
+
+		if (state == OBJECT)
+		{
+			this.out.writeRaw(',');
+		}
+		else if (state != EMPTY_OBJECT)
+		{
+			throw new IllegalStateException("Not expecting a name");
+		}
+
+		this.stack[this.depth] = NAME;
+
+		this.out.writeString(name);
+		this.out.writeRaw(':');
+
+		return this;
+	}
+
+	/**
+	 * Write a boolean.
+	 * 
+	 * @param b
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final boolean b) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(b);
+
+		return this;
+	}
+
+	/**
+	 * Write a double.
+	 * 
+	 * @param d
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final double d) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(d);
+
+		return this;
+	}
+
+	/**
+	 * Write a float.
+	 * 
+	 * @param f
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final float f) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(f);
+
+		return this;
+	}
+
+	/**
+	 * Write an integer.
+	 * 
+	 * @param i
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final int i) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(i);
+
+		return this;
+	}
+
+	/**
+	 * Write a long.
+	 * 
+	 * @param l
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final long l) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(l);
+
+		return this;
+	}
+
+	/**
+	 * Write a string, or <code>null</code>.
+	 * 
+	 * @param s
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final CharSequence s) throws IOException
+	{
+		this.beforeValue();
+
+		if (s == null)
+		{
+			this.out.write((Object) null);
+		}
+		else
+		{
+			this.out.writeString(s);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Write any object the way {@link JSONOut#write(Object)} does.
+	 * 
+	 * @param o
+	 *            the value
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator value(final Object o) throws IOException
+	{
+		this.beforeValue();
+		this.out.write(o);
+
+		return this;
+	}
+
+	/**
+	 * Write <code>null</code>.
+	 * 
+	 * @return this generator
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public JSONGenerator nullValue() throws IOException
+	{
+		return this.value((Object) null);
+	}
+
+	/**
+	 * Same as {@link #value(Object)}.
+	 */
+	@Override
+	public void write(final Object o) throws IOException
+	{
+		this.value(o);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.out.close();
+	}
+
+	/**
+	 * Get the {@link JSONOut} this generator writes to.
+	 * 
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut getOut()
+	{
+		return this.out;
+	}
+
+	private void beforeValue() throws IOException
+	{
+		switch (this.stack[this.depth])
+		{
+			case TOP:
+				break;
+			case NAME:
+				this.stack[this.depth] = OBJECT;
+				break;
+			case EMPTY_ARRAY:
+				this.stack[this.depth] = ARRAY;
+				break;
+			case ARRAY:
+				this.out.writeRaw(',');
+				break;
+			default:
+				throw new IllegalStateException("Expecting a name");
+		}
+	}
+
+	private void push(final int state)
+	{
+		if (++this.depth == this.stack.length)
+		{
+			final int[] larger = new int[this.stack.length << 1];
+
+			System.arraycopy(this.stack, 0, larger, 0, this.stack.length);
+
+			this.stack = larger;
+		}
+
+		this.stack[this.depth] = state;
+	}
+}
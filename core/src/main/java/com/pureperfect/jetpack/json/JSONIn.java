@@ -0,0 +1,190 @@
+/*
+ * Copyright [2008] PurePerfect.com
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * 
+ * You may obtain a copy of the License at 
+ * 		http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, 
+ * either express or implied. 
+ * 
+ * See the License for the specific language governing permissions
+ * and limitations under the License. 
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+
+import com.pureperfect.jetpack.Input;
+
+/**
+ * Unmarshall inbound data into generic {@link JSONData}.
+ * 
+ * <p>
+ * Objects are read as {@link JSONObject JSONObjects} of {@link JSONField
+ * JSONFields}, and arrays as {@link JSONArray JSONArrays}. Strings, with their
+ * escape sequences decoded, are read as {@link String Strings}, and
+ * <code>true</code>, <code>false</code> and <code>null</code> as
+ * {@link Boolean Booleans} and <code>null</code>. Numbers with a fraction or
+ * exponent are read as {@link Double Doubles}, numbers of up to nine
+ * characters as {@link Integer Integers}, and longer ones as {@link Long
+ * Longs}, or {@link BigInteger BigIntegers} if they do not fit.
+ * </p>
+ * 
+ * <p>
+ * The values are built from the tokens of a {@link JSONReader}, which reads
+ * characters from the {@link Reader} in large blocks. Nothing is read past
+ * the end of a value until it is needed for the next one, so several values
+ * can be read one after the other from the same stream. To process a document
+ * without holding all of it in memory, use a {@link JSONReader} directly.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0
+ * @since 2.0
+ */
+public class JSONIn implements Input
+{
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final JSONReader in;
+
+	/**
+	 * Create a new unmarshaller. For UTF-8, {@link UTF8JSONIn} parses the bytes
+	 * without decoding them first.
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 * @param charset
+	 *            the expected character set
+	 */
+	public JSONIn(final InputStream in, final Charset charset)
+	{
+		this(new InputStreamReader(in, charset));
+	}
+
+	/**
+	 * Create a new unmarshaller.
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 * @param charset
+	 *            the expected character set
+	 * 
+	 * @throws UnsupportedEncodingException
+	 *             if the charset is not supported.
+	 */
+	public JSONIn(final InputStream in, final String charset)
+			throws UnsupportedEncodingException
+	{
+		this(new InputStreamReader(in, charset));
+	}
+
+	/**
+	 * Create a new unmarshaller from the specified reader. The reader does not
+	 * need to be buffered.
+	 * 
+	 * @param in
+	 *            the reader
+	 */
+	public JSONIn(final Reader in)
+	{
+		this(in, DEFAULT_BUFFER_SIZE);
+	}
+
+	JSONIn(final Reader in, final int size)
+	{
+		this(new JSONReader(in, size));
+	}
+
+	/**
+	 * Build values from the tokens of a {@link JSONReader}.
+	 */
+	JSONIn(final JSONReader in)
+	{
+		this.in = in;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.in.close();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object read() throws IOException
+	{
+		final JSONToken token = this.in.next();
+
+		if (token == null)
+		{
+			throw new MalformedJSONException("Unexpected end of input");
+		}
+
+		return this.readValue(token);
+	}
+
+	private Object readValue(final JSONToken token) throws IOException
+	{
+		switch (token)
+		{
+			case START_OBJECT:
+				return this.readObject();
+			case START_ARRAY:
+				return this.readArray();
+			case VALUE_STRING:
+				return this.in.getText();
+			case VALUE_NUMBER:
+				return this.in.getNumber();
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			default:
+				return null;
+		}
+	}
+
+	private JSONArray<Object> readArray() throws IOException
+	{
+		final JSONArray<Object> array = new JSONArray<Object>();
+
+		JSONToken token;
+
+		while ((token = this.in.next()) != JSONToken.END_ARRAY)
+		{
+			array.add(this.readValue(token));
+		}
+
+		return array;
+	}
+
+	private JSONObject readObject() throws IOException
+	{
+		final JSONObject object = new JSONObject();
+
+		while (this.in.next() != JSONToken.END_OBJECT)
+		{
+			final String name = this.in.getText();
+
+			object.add(new JSONField(name, this.readValue(this.in.next())));
+		}
+
+		return object;
+	}
+}
@@ -16,6 +16,7 @@
  */
 package com.pureperfect.jetpack.json;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -276,28 +277,40 @@ public class JSONObject implements JSONData, List<JSONField>
 	@Override
 	public CharSequence toText(final TypeConverter converter)
 	{
-		final int size = this.size();
-		final int length = 24 * size;
+		return JSONDataWriter.toText(this, converter);
+	}
 
-		final StringBuilder builder = new StringBuilder(length);
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final Appendable out) throws IOException
+	{
+		JSONDataWriter.write(this, out, JSONData.DEFAULT_TYPE_CONVERTER);
+	}
 
-		builder.append('{');
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final JSONOut out) throws IOException
+	{
+		out.writeRaw('{');
 
-		int i = 1;
+		boolean first = true;
 
 		for (final JSONField field : this.fields)
 		{
-			builder.append(field.toText());
-
-			if (i < size)
+			if (!first)
 			{
-				builder.append(',');
+				out.writeRaw(',');
 			}
-			++i;
-		}
 
-		builder.append('}');
+			first = false;
+
+			field.writeTo(out);
+		}
 
-		return builder;
+		out.writeRaw('}');
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,1243 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+
+import com.pureperfect.jetpack.CharacterFormatter;
+import com.pureperfect.jetpack.Field;
+import com.pureperfect.jetpack.FieldReader;
+import com.pureperfect.jetpack.FieldVisitor;
+import com.pureperfect.jetpack.Output;
+import com.pureperfect.jetpack.TypeConverter;
+import com.pureperfect.jetpack.TypeWriter;
+import com.pureperfect.jetpack.TypedFieldReader;
+
+/**
+ * Marshalls objects to an output stream as JSON data.
+ * 
+ * The JSONOut performs several steps before writing an object to the output
+ * stream.
+ * 
+ * The rules for marshalling are as follows:
+ * 
+ * <ul>
+ * <li>{@link JSONData}, such as a {@link JSONObject} read by {@link JSONIn}, is
+ * written by {@link JSONData#writeTo(JSONOut)}.</li>
+ * <li>If the type is a primative type, Date or Calendar, it is converted using
+ * the set {@link TypeConverter} and written to the output stream.</li>
+ * <li>If the type is a string type, it is written to the output stream by the
+ * {@link CharacterFormatter} to make sure that any necessary formatting (e.g.
+ * escaping certain characters with '\') takes place before writing to the
+ * output stream.</li>
+ * <li>If the object is an object, it is written to the output stream between
+ * braces {...} to signify an object in {@link JSON}. A {@link CompiledSerializer}
+ * for the exact type of the object is used if there is one on the class path,
+ * otherwise the fields are found with the {@link FieldReader}. If the
+ * {@link FieldReader} is a {@link TypedFieldReader}, primitive fields are
+ * written with the primitive methods of the {@link TypeConverter} without
+ * being boxed.</li>
+ * <li>If the object is a {@link java.util.Map java.util.Map} it is written to
+ * the output stream between braces {...} to signify an object in {@link JSON}
+ * .</li>
+ * <li>If the object is an instance of java.util.Collection or the object is an
+ * array, it is delimited by brackets [...], to signify an array in
+ * {@link JSON}.</li>
+ * <li>Any other {@link Iterable}, {@link Iterator},
+ * {@link java.util.stream.BaseStream Stream} or {@link Spliterator} is written
+ * as an array too, unless its class or a superclass has getters annotated
+ * with {@link JSON}. The elements are written as they are produced, so they
+ * are never all held in memory; see {@link #setFlushInterval(int)}.</li>
+ * </ul>
+ * 
+ * <p>
+ * Large collections and arrays can be written on several threads, see
+ * {@link #setParallelPool(ForkJoinPool)}.
+ * </p>
+ * 
+ * <p>
+ * To share one set of settings, and what is cached for them, between threads,
+ * create the instances with a {@link JSONOutFactory}.
+ * </p>
+ * 
+ * <p>
+ * Serializers registered with {@link #register(Class, JSONSerializer)} take
+ * precedence over these rules. Which rule applies to a class is only worked
+ * out the first time an object of that class is written.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0
+ * @since 2.0
+ */
+public class JSONOut implements Output
+{
+	/**
+	 * The default number of elements written by each task in parallel mode.
+	 */
+	public static final int DEFAULT_PARALLEL_CHUNK_SIZE = 4096;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private FieldReader fieldReader;
+
+	private Writer out;
+
+	/*
+	 * The UTF-8 encoder for output streams, kept to be reused by reset.
+	 */
+	private UTF8Writer utf8;
+
+	private TypeConverter typeConverter;
+
+	/*
+	 * The type converter if it is also a TypeWriter, otherwise null.
+	 */
+	private TypeWriter typeWriter;
+
+	private final char[] digits = new char[TypeWriter.MAX_LENGTH];
+
+	private CharacterFormatter charFormat;
+
+	private boolean generateSerializers;
+
+	private final FieldWriter fields = new FieldWriter();
+
+	private SerializerRegistry serializers;
+
+	/*
+	 * Whether the serializers belong to a JSONOutFactory and must be copied
+	 * before registering more.
+	 */
+	private boolean sharedSerializers;
+
+	private int flushInterval;
+
+	private ForkJoinPool parallelPool;
+
+	private int parallelChunkSize;
+
+	/**
+	 * Create a new {@link JSONOut} writing UTF-8 using the default
+	 * {@link FieldReader} and {@link TypeConverter}. Characters are encoded
+	 * directly into a buffer, which is written to the stream in blocks when it
+	 * is full and when the {@link JSONOut} is flushed. Unlike the other
+	 * constructors, the resulting {@link JSONOut} does not synchronize on the
+	 * stream.
+	 * 
+	 * @param out
+	 *            The output stream to use.
+	 */
+	public JSONOut(final OutputStream out)
+	{
+		this(new UTF8Writer(out));
+	}
+
+	/**
+	 * Create a new {@link JSONOut} using the default {@link FieldReader} and
+	 * {@link TypeConverter}. UTF-8 is written the same way as with
+	 * {@link #JSONOut(OutputStream)}.
+	 * 
+	 * @param out
+	 *            The output stream to use.
+	 * @param cs
+	 *            The character set to use.
+	 */
+	public JSONOut(final OutputStream out, final Charset cs)
+	{
+		this(UTF_8.equals(cs) ? new UTF8Writer(out) : new OutputStreamWriter(
+				out, cs));
+	}
+
+	/**
+	 * Create a new {@link JSONOut} using the default {@link FieldReader} and
+	 * {@link TypeConverter}. UTF-8 is written the same way as with
+	 * {@link #JSONOut(OutputStream)}.
+	 * 
+	 * @param out
+	 *            the output stream to use.
+	 * 
+	 * @param charset
+	 *            the charset to use
+	 * @throws UnsupportedEncodingException
+	 *             If the specified character set is not supported.
+	 */
+	public JSONOut(final OutputStream out, final String charset)
+			throws UnsupportedEncodingException
+	{
+		this("UTF-8".equalsIgnoreCase(charset)
+				|| "UTF8".equalsIgnoreCase(charset) ? new UTF8Writer(out)
+				: new OutputStreamWriter(out, charset));
+	}
+
+	/**
+	 * Create a new {@link JSONOut} writing UTF-8 to a channel using the default
+	 * {@link FieldReader} and {@link TypeConverter}. Characters are encoded
+	 * into a heap buffer, which is written to the channel when it is full and
+	 * when the {@link JSONOut} is flushed.
+	 * 
+	 * @param out
+	 *            The channel to use. It must be in blocking mode.
+	 * @throws IllegalArgumentException
+	 *             if the channel is in non-blocking mode.
+	 */
+	public JSONOut(final WritableByteChannel out)
+	{
+		this(new ByteBufferWriter(out));
+	}
+
+	/**
+	 * Create a new {@link JSONOut} writing UTF-8 to a channel through the
+	 * given buffer, using the default {@link FieldReader} and
+	 * {@link TypeConverter}. The buffer may be direct, and is passed to the
+	 * channel as it is, so it can be one the channel already owns. All of the
+	 * buffer is used, whatever its position and limit, and it must not be
+	 * used for anything else until the {@link JSONOut} is closed.
+	 * 
+	 * @param out
+	 *            The channel to use. It must be in blocking mode.
+	 * @param buffer
+	 *            The buffer to write from, with room for at least four bytes.
+	 * @throws IllegalArgumentException
+	 *             if the channel is in non-blocking mode, or the buffer is
+	 *             read only or too small.
+	 */
+	public JSONOut(final WritableByteChannel out, final ByteBuffer buffer)
+	{
+		this(new ByteBufferWriter(out, buffer));
+	}
+
+	/**
+	 * Create a new {@link JSONOut} using the default {@link FieldReader} and
+	 * {@link TypeConverter}.
+	 * 
+	 * @param out
+	 *            The writer to write {@link JSON} data to.
+	 */
+	public JSONOut(final Writer out)
+	{
+		this(out, JSONOutFactory.DEFAULT);
+	}
+
+	/**
+	 * Create a new {@link JSONOut} with the settings of a factory.
+	 */
+	JSONOut(final Writer out, final JSONOutFactory config)
+	{
+		this.out = out;
+		this.utf8 = out instanceof UTF8Writer ? (UTF8Writer) out : null;
+		this.fieldReader = config.getFieldReader();
+		this.typeConverter = config.getTypeConverter();
+		this.typeWriter = this.typeConverter instanceof TypeWriter ? (TypeWriter) this.typeConverter
+				: null;
+		this.charFormat = config.getCharFormat();
+		this.generateSerializers = config.isGenerateSerializers();
+		this.flushInterval = config.getFlushInterval();
+		this.parallelPool = config.getParallelPool();
+		this.parallelChunkSize = config.getParallelChunkSize();
+		this.serializers = config.getSerializers();
+		this.sharedSerializers = this.serializers != null;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.out.close();
+	}
+
+	/**
+	 * Write to another stream, keeping all settings. UTF-8 is written the same
+	 * way as with {@link #JSONOut(OutputStream)}, reusing the buffer from the
+	 * last stream written to if there was one, so writing to many streams
+	 * one after the other allocates nothing per stream. The previous output
+	 * is not flushed or closed; anything not yet flushed to it is discarded.
+	 * 
+	 * @param out
+	 *            The output stream to use.
+	 * @see JSONOutPool
+	 */
+	public void reset(final OutputStream out)
+	{
+		if (this.utf8 == null)
+		{
+			this.utf8 = new UTF8Writer(out);
+		}
+		else
+		{
+			this.utf8.reset(out);
+		}
+
+		this.out = this.utf8;
+	}
+
+	/**
+	 * Write to another writer, keeping all settings. The previous output is
+	 * not flushed or closed.
+	 * 
+	 * @param out
+	 *            The writer to write {@link JSON} data to.
+	 * @see JSONOutPool
+	 */
+	public void reset(final Writer out)
+	{
+		this.out = out;
+	}
+
+	/**
+	 * Drop the references to the output, keeping the buffers.
+	 */
+	void detach()
+	{
+		if (this.utf8 != null)
+		{
+			this.utf8.reset(null);
+		}
+
+		this.out = null;
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		this.out.flush();
+	}
+
+	/**
+	 * Get the current FieldReader.
+	 * 
+	 * @return the current FieldReader.
+	 */
+	public FieldReader getFieldReader()
+	{
+		return this.fieldReader;
+	}
+
+	/**
+	 * Get the current {@link TypeConverter}.
+	 * 
+	 * @return the current {@link TypeConverter}.
+	 */
+	public TypeConverter getTypeConverter()
+	{
+		return this.typeConverter;
+	}
+
+	/**
+	 * Set the {@link FieldReader}. With any reader but the default one, mapped
+	 * types are always written with the reader, and not with compiled or
+	 * generated serializers.
+	 * 
+	 * <p>
+	 * Whether an {@link Iterable}, {@link Iterator}, stream or
+	 * {@link Spliterator} is written as an array or as an object is decided
+	 * by the {@link JSON} annotation alone, whatever the reader, so that it
+	 * can be worked out once per class for all instances.
+	 * </p>
+	 * 
+	 * @param fieldReader
+	 *            the {@link FieldReader}.
+	 */
+	public void setFieldReader(final FieldReader fieldReader)
+	{
+		this.fieldReader = fieldReader;
+	}
+
+	/**
+	 * Set the {@link TypeConverter}. If the converter is also a
+	 * {@link TypeWriter}, numbers are written with the {@link TypeWriter}.
+	 * 
+	 * @param converter
+	 *            the new {@link TypeConverter}.
+	 */
+	public void setTypeConverter(final TypeConverter converter)
+	{
+		this.typeConverter = converter;
+		this.typeWriter = converter instanceof TypeWriter ? (TypeWriter) converter
+				: null;
+	}
+
+	/**
+	 * Get the current CharacterEscaper.
+	 * 
+	 * @return the current CharacterEscaper
+	 */
+	public CharacterFormatter getCharFormat()
+	{
+		return charFormat;
+	}
+
+	/**
+	 * Set the CharacterEscaper.
+	 * 
+	 * @param characterHandler
+	 *            the new CharacterEscaper
+	 */
+	public void setCharFormat(CharacterFormatter characterHandler)
+	{
+		this.charFormat = characterHandler;
+	}
+
+	/**
+	 * Check whether mapped types are written by generated serializers.
+	 * 
+	 * @return <code>true</code> if serializers are generated.
+	 * @see #setGenerateSerializers(boolean)
+	 */
+	public boolean isGenerateSerializers()
+	{
+		return this.generateSerializers;
+	}
+
+	/**
+	 * Write mapped types with serializers generated at runtime. When enabled,
+	 * a serializer class is generated for each class with public {@link JSON}
+	 * getters the first time it is written. The serializer writes the field
+	 * names as constants and calls the getters directly instead of going
+	 * through the {@link FieldReader}. Classes that a serializer cannot be
+	 * generated for are still written with the {@link FieldReader}.
+	 * 
+	 * <p>
+	 * Generated serializers always look for the {@link JSON} annotation, so
+	 * they are only used with the default {@link FieldReader}. It is disabled
+	 * by default.
+	 * </p>
+	 * 
+	 * @param generate
+	 *            whether serializers are generated
+	 */
+	public void setGenerateSerializers(final boolean generate)
+	{
+		this.generateSerializers = generate;
+	}
+
+	/**
+	 * Get the number of elements of an iterator or stream written between
+	 * flushes.
+	 * 
+	 * @return the number of elements, or 0 if the output is not flushed.
+	 * @see #setFlushInterval(int)
+	 */
+	public int getFlushInterval()
+	{
+		return this.flushInterval;
+	}
+
+	/**
+	 * Flush the output after every <code>elements</code> elements of an
+	 * {@link Iterator}, {@link Iterable}, {@link java.util.stream.BaseStream
+	 * Stream} or {@link Spliterator} written, so large results are passed on
+	 * while they are being written instead of only at the end. The default is
+	 * 0, which disables flushing.
+	 * 
+	 * @param elements
+	 *            the number of elements, or 0
+	 */
+	public void setFlushInterval(final int elements)
+	{
+		if (elements < 0)
+		{
+			throw new IllegalArgumentException("Negative interval: "
+					+ elements);
+		}
+
+		this.flushInterval = elements;
+	}
+
+	/**
+	 * Get the pool that large collections and arrays are written on.
+	 * 
+	 * @return the pool, or <code>null</code> if they are written on the
+	 *         calling thread.
+	 * @see #setParallelPool(ForkJoinPool)
+	 */
+	public ForkJoinPool getParallelPool()
+	{
+		return this.parallelPool;
+	}
+
+	/**
+	 * Write collections and arrays with more elements than the
+	 * {@link #setParallelChunkSize(int) chunk size} on a pool. The elements
+	 * are split into chunks that are written into separate buffers by the
+	 * pool, and the buffers are written to the output in order, so the output
+	 * is the same as when writing on the calling thread. Collections are
+	 * copied to an array first. Collections and arrays inside the elements are
+	 * written by the task writing the element.
+	 * 
+	 * <p>
+	 * The {@link FieldReader}, {@link TypeConverter},
+	 * {@link CharacterFormatter} and registered serializers are used by all
+	 * threads of the pool at once, so they must be thread safe, as the default
+	 * ones are. The default is <code>null</code>, which writes everything on
+	 * the calling thread.
+	 * </p>
+	 * 
+	 * @param pool
+	 *            the pool, or <code>null</code>
+	 */
+	public void setParallelPool(final ForkJoinPool pool)
+	{
+		this.parallelPool = pool;
+	}
+
+	/**
+	 * Get the number of elements written by each task in parallel mode.
+	 * 
+	 * @return the number of elements.
+	 * @see #setParallelChunkSize(int)
+	 */
+	public int getParallelChunkSize()
+	{
+		return this.parallelChunkSize;
+	}
+
+	/**
+	 * Set the number of elements written by each task in parallel mode. Only
+	 * collections and arrays with more elements than this are split. The
+	 * default is {@link #DEFAULT_PARALLEL_CHUNK_SIZE}.
+	 * 
+	 * @param elements
+	 *            the number of elements
+	 * @see #setParallelPool(ForkJoinPool)
+	 */
+	public void setParallelChunkSize(final int elements)
+	{
+		if (elements < 1)
+		{
+			throw new IllegalArgumentException("Chunk size must be positive: "
+					+ elements);
+		}
+
+		this.parallelChunkSize = elements;
+	}
+
+	/**
+	 * Register a serializer for a type. Objects of the type and its subtypes
+	 * are written with the serializer instead of the built in rules. If
+	 * serializers are registered for more than one supertype of an object,
+	 * the one for the closest superclass is used, then the first one
+	 * registered for an interface.
+	 * 
+	 * @param <T>
+	 *            the type
+	 * @param type
+	 *            the type to write with the serializer
+	 * @param serializer
+	 *            the serializer
+	 */
+	public <T> void register(final Class<T> type,
+			final JSONSerializer<? super T> serializer)
+	{
+		if (this.serializers == null)
+		{
+			this.serializers = new SerializerRegistry();
+		}
+		else if (this.sharedSerializers)
+		{
+			this.serializers = new SerializerRegistry(this.serializers);
+			this.sharedSerializers = false;
+		}
+
+		this.serializers.register(type, serializer);
+	}
+
+	/**
+	 * Write text that is already formatted as {@link JSON} to the output as it
+	 * is, without quoting or escaping it.
+	 * 
+	 * @param json
+	 *            the text to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void writeRaw(final CharSequence json) throws IOException
+	{
+		this.out.append(json);
+	}
+
+	/**
+	 * Write {@link JSON} that is already encoded as UTF-8 as it is. The bytes
+	 * are copied to the buffer when writing UTF-8 to a stream or channel, and
+	 * decoded otherwise.
+	 */
+	void writeRaw(final byte[] utf8, final int off, final int len)
+			throws IOException
+	{
+		if (this.out instanceof UTF8Encoder)
+		{
+			((UTF8Encoder) this.out).writeUTF8(utf8, off, len);
+		}
+		else
+		{
+			this.out.write(new String(utf8, off, len, UTF_8));
+		}
+	}
+
+	/**
+	 * Write a single character of {@link JSON} syntax, e.g. a brace.
+	 */
+	void writeRaw(final char c) throws IOException
+	{
+		this.out.append(c);
+	}
+
+	/**
+	 * Write a boolean with the {@link TypeConverter}.
+	 * 
+	 * @param b
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final boolean b) throws IOException
+	{
+		this.out.append(this.typeConverter.convert(b));
+	}
+
+	/**
+	 * Write a byte with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param b
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final byte b) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write((int) b,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(b));
+		}
+	}
+
+	/**
+	 * Write a character. {@link TypeConverter} has no method for characters,
+	 * so it is written the same way as a {@link Character}.
+	 * 
+	 * @param c
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final char c) throws IOException
+	{
+		this.write((Object) Character.valueOf(c));
+	}
+
+	/**
+	 * Write a double with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param d
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final double d) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write(d,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(d));
+		}
+	}
+
+	/**
+	 * Write a float with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param f
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final float f) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write(f,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(f));
+		}
+	}
+
+	/**
+	 * Write an integer with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param i
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final int i) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write(i,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(i));
+		}
+	}
+
+	/**
+	 * Write a long with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param l
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final long l) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write(l,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(l));
+		}
+	}
+
+	/**
+	 * Write a short with the {@link TypeWriter}, or with the
+	 * {@link TypeConverter} if it is not a {@link TypeWriter}.
+	 * 
+	 * @param s
+	 *            the value to write
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(final short s) throws IOException
+	{
+		if (this.typeWriter != null)
+		{
+			this.out.write(this.digits, 0, this.typeWriter.write((int) s,
+					this.digits, 0));
+		}
+		else
+		{
+			this.out.append(this.typeConverter.convert(s));
+		}
+	}
+
+	@Override
+	public void write(final Object o) throws IOException
+	{
+		/*
+		 * Handle null values.
+		 */
+		if (o == null)
+		{
+			this.out.append(this.typeConverter.getNull());
+			return;
+		}
+
+		final Class<?> type = o.getClass();
+
+		if (this.serializers != null)
+		{
+			final JSONSerializer<Object> custom = this.serializers.get(type);
+
+			if (custom != null)
+			{
+				custom.write(o, this);
+				return;
+			}
+		}
+
+		ValueWriters.forClass(type).write(o, this);
+	}
+
+	/**
+	 * Write a string between quotes, formatted by the
+	 * {@link CharacterFormatter}.
+	 */
+	void writeString(final CharSequence s) throws IOException
+	{
+		this.out.append('\"');
+
+		this.charFormat.write(s, this.out);
+
+		this.out.append('\"');
+	}
+
+	/**
+	 * Write a collection as an array.
+	 */
+	void writeCollection(final Collection<?> c) throws IOException
+	{
+		if (this.isParallel(c.size()))
+		{
+			this.writeArray(c.toArray());
+		}
+		else
+		{
+			this.writeIterator(c.iterator());
+		}
+	}
+
+	/**
+	 * Write the remaining elements of an iterator as an array, one at a time.
+	 * The commas are placed as the elements are written, so the number of
+	 * elements does not have to be known in advance.
+	 */
+	void writeIterator(final Iterator<?> it) throws IOException
+	{
+		this.out.append('[');
+
+		final int interval = this.flushInterval;
+
+		boolean first = true;
+
+		int unflushed = 0;
+
+		while (it.hasNext())
+		{
+			if (!first)
+			{
+				this.out.append(',');
+			}
+
+			first = false;
+
+			this.write(it.next());
+
+			if (++unflushed == interval)
+			{
+				this.out.flush();
+
+				unflushed = 0;
+			}
+		}
+
+		this.out.append(']');
+	}
+
+	/**
+	 * Write a map as an object.
+	 */
+	void writeMap(final Map<?, ?> map) throws IOException
+	{
+		this.out.append('{');
+
+		int i = 0;
+		final int stop = map.size();
+
+		for (final Map.Entry<?, ?> entry : map.entrySet())
+		{
+			this.out.append("\"");
+
+			/*
+			 * The key is converted to a string before writing.
+			 */
+			this.out.append(this.typeConverter.convert(entry.getKey()));
+			this.out.append("\":");
+
+			this.write(entry.getValue());
+
+			if (++i < stop)
+			{
+				this.out.append(',');
+			}
+		}
+
+		this.out.append('}');
+	}
+
+	/**
+	 * Writes one element of an array.
+	 */
+	interface Elements
+	{
+		/**
+		 * Write the element at an index.
+		 * 
+		 * @param out
+		 *            the output to write it to
+		 * @param i
+		 *            the index of the element
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		void write(JSONOut out, int i) throws IOException;
+	}
+
+	/**
+	 * Write the elements of an array between brackets, in parallel if it is
+	 * large enough.
+	 */
+	void writeArray(final int length, final Elements elements)
+			throws IOException
+	{
+		if (this.isParallel(length))
+		{
+			new ParallelWriter(this, length, elements).write();
+		}
+		else
+		{
+			this.out.append('[');
+			this.writeElements(elements, 0, length);
+			this.out.append(']');
+		}
+	}
+
+	/**
+	 * Write the elements from <code>from</code> inclusive to <code>to</code>
+	 * exclusive, separated by commas.
+	 */
+	void writeElements(final Elements elements, final int from, final int to)
+			throws IOException
+	{
+		for (int i = from; i < to; ++i)
+		{
+			if (i > from)
+			{
+				this.out.append(',');
+			}
+
+			elements.write(this, i);
+		}
+	}
+
+	/**
+	 * Write an array of objects.
+	 */
+	void writeArray(final Object[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of booleans without boxing them.
+	 */
+	void writeArray(final boolean[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of bytes without boxing them.
+	 */
+	void writeArray(final byte[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of characters as an array of one character strings.
+	 */
+	void writeArray(final char[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.writeString(String
+				.valueOf(a[i])));
+	}
+
+	/**
+	 * Write an array of doubles without boxing them.
+	 */
+	void writeArray(final double[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of floats without boxing them.
+	 */
+	void writeArray(final float[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of integers without boxing them.
+	 */
+	void writeArray(final int[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of longs without boxing them.
+	 */
+	void writeArray(final long[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	/**
+	 * Write an array of shorts without boxing them.
+	 */
+	void writeArray(final short[] a) throws IOException
+	{
+		this.writeArray(a.length, (out, i) -> out.write(a[i]));
+	}
+
+	private boolean isParallel(final int elements)
+	{
+		return this.parallelPool != null && elements > this.parallelChunkSize;
+	}
+
+	/**
+	 * Create a {@link JSONOut} with the same settings for one chunk of a
+	 * parallel write. It writes everything on the calling thread.
+	 */
+	JSONOut fork(final Writer w)
+	{
+		final JSONOut result = new JSONOut(w);
+
+		result.fieldReader = this.fieldReader;
+		result.typeConverter = this.typeConverter;
+		result.typeWriter = this.typeWriter;
+		result.charFormat = this.charFormat;
+		result.generateSerializers = this.generateSerializers;
+		result.serializers = this.serializers;
+		result.sharedSerializers = this.serializers != null;
+
+		return result;
+	}
+
+	/**
+	 * Write an object that is not a string, collection, map, array or boxed
+	 * primitive.
+	 * 
+	 * <p>
+	 * Compiled and generated serializers write the fields the default
+	 * {@link FieldReader} finds, so they are only used with that reader. Any
+	 * other reader is always asked for the fields.
+	 * </p>
+	 * 
+	 * @param o
+	 *            the object to write
+	 * @param compiled
+	 *            the {@link CompiledSerializer} for the class, or
+	 *            <code>null</code>
+	 */
+	void writeMapped(final Object o, final JSONSerializer<Object> compiled)
+			throws IOException
+	{
+		if (this.fieldReader == JSONOutFactory.DEFAULT.getFieldReader())
+		{
+			JSONSerializer<Object> serializer = compiled;
+
+			if (serializer == null && this.generateSerializers)
+			{
+				serializer = SerializerGenerator.forClass(o.getClass());
+			}
+
+			if (serializer != null)
+			{
+				serializer.write(o, this);
+				return;
+			}
+		}
+
+		if (this.fieldReader instanceof TypedFieldReader)
+		{
+			this.writeFields((TypedFieldReader) this.fieldReader, o);
+			return;
+		}
+
+		final Iterator<Field> fields = this.fieldReader.read(o);
+
+		if (fields.hasNext())
+		{
+			this.out.append('{');
+
+			while (fields.hasNext())
+			{
+				Field field = fields.next();
+
+				this.out.append('"');
+				this.out.append(field.getName());
+				this.out.append("\":");
+
+				final Object value = field.getValue();
+
+				/*
+				 * Recursive call to write out field value.
+				 */
+				this.write(value);
+
+				if (fields.hasNext())
+				{
+					this.out.append(',');
+				}
+			}
+
+			this.out.append('}');
+		}
+		else
+		{
+			/*
+			 * It's an object, but it's not a mapped type recognized by our
+			 * FieldReader. The converter should still do the best it can to
+			 * convert the object.
+			 */
+			this.out.append(this.typeConverter.convert(o));
+		}
+	}
+
+	/**
+	 * Write the fields of a mapped type without creating {@link Field Fields}.
+	 */
+	private void writeFields(final TypedFieldReader reader, final Object o)
+			throws IOException
+	{
+		final boolean outer = this.fields.first;
+
+		this.fields.first = true;
+
+		try
+		{
+			if (reader.accept(o, this.fields))
+			{
+				this.out.append('}');
+			}
+			else
+			{
+				/*
+				 * Not a mapped type, see below.
+				 */
+				this.out.append(this.typeConverter.convert(o));
+			}
+		}
+		finally
+		{
+			this.fields.first = outer;
+		}
+	}
+
+	/**
+	 * Writes the fields passed by a {@link TypedFieldReader}. The opening brace
+	 * is written before the first field, so nothing is written for an object
+	 * without fields.
+	 */
+	private final class FieldWriter implements FieldVisitor
+	{
+		boolean first;
+
+		private void name(final CharSequence name) throws IOException
+		{
+			JSONOut.this.out.append(this.first ? '{' : ',');
+
+			this.first = false;
+
+			JSONOut.this.out.append('"');
+			JSONOut.this.out.append(name);
+			JSONOut.this.out.append("\":");
+		}
+
+		@Override
+		public void onBoolean(final CharSequence name, final boolean value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onByte(final CharSequence name, final byte value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onDouble(final CharSequence name, final double value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onFloat(final CharSequence name, final float value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onInt(final CharSequence name, final int value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onLong(final CharSequence name, final long value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onObject(final CharSequence name, final Object value)
+				throws IOException
+		{
+			this.name(name);
+
+			/*
+			 * Recursive call to write out field value.
+			 */
+			JSONOut.this.write(value);
+		}
+
+		@Override
+		public void onShort(final CharSequence name, final short value)
+				throws IOException
+		{
+			this.name(name);
+			JSONOut.this.write(value);
+		}
+	}
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ForkJoinPool;
+
+import com.pureperfect.jetpack.CachingAnnotationReader;
+import com.pureperfect.jetpack.CharacterFormatter;
+import com.pureperfect.jetpack.FieldReader;
+import com.pureperfect.jetpack.TypeConverter;
+
+/**
+ * An immutable set of {@link JSONOut} settings, which creates
+ * {@link JSONOut JSONOuts} using them. A factory is safe to share between
+ * threads, and should be created once and kept: the metadata that its
+ * {@link FieldReader} caches for each class, and the serializer it finds for
+ * each class among those registered, are worked out once and used by every
+ * {@link JSONOut} it creates, so creating one per call is cheap.
+ * 
+ * <pre>
+ * static final JSONOutFactory JSON = JSONOutFactory.builder()
+ * 		.fieldReader(new LambdaAnnotationReader(JSON.class))
+ * 		.register(Money.class, new MoneySerializer()).build();
+ * 
+ * ...
+ * JSON.create(response.getOutputStream()).write(result);
+ * </pre>
+ * 
+ * <p>
+ * The {@link FieldReader}, {@link TypeConverter}, {@link CharacterFormatter}
+ * and serializers are used by all threads at once, so they must be thread
+ * safe, as the built in ones are. Changing the settings of a {@link JSONOut}
+ * after it is created does not affect the factory or the other instances it
+ * created.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public final class JSONOutFactory
+{
+	/**
+	 * The settings of a {@link JSONOut} created with a constructor.
+	 */
+	public static final JSONOutFactory DEFAULT = builder().build();
+
+	private final FieldReader fieldReader;
+
+	private final TypeConverter typeConverter;
+
+	private final CharacterFormatter charFormat;
+
+	private final boolean generateSerializers;
+
+	private final int flushInterval;
+
+	private final ForkJoinPool parallelPool;
+
+	private final int parallelChunkSize;
+
+	private final SerializerRegistry serializers;
+
+	private JSONOutFactory(final Builder b)
+	{
+		this.fieldReader = b.fieldReader;
+		this.typeConverter = b.typeConverter;
+		this.charFormat = b.charFormat;
+		this.generateSerializers = b.generateSerializers;
+		this.flushInterval = b.flushInterval;
+		this.parallelPool = b.parallelPool;
+		this.parallelChunkSize = b.parallelChunkSize;
+		this.serializers = b.serializers == null ? null
+				: new SerializerRegistry(b.serializers);
+	}
+
+	/**
+	 * Start building a factory with the default settings.
+	 * 
+	 * @return the builder
+	 */
+	public static Builder builder()
+	{
+		return new Builder();
+	}
+
+	/**
+	 * Create a {@link JSONOut} writing UTF-8 to a stream, as
+	 * {@link JSONOut#JSONOut(OutputStream)} does.
+	 * 
+	 * @param out
+	 *            the stream to write to
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut create(final OutputStream out)
+	{
+		return new JSONOut(new UTF8Writer(out), this);
+	}
+
+	/**
+	 * Create a {@link JSONOut} writing to a writer.
+	 * 
+	 * @param out
+	 *            the writer to write to
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut create(final Writer out)
+	{
+		return new JSONOut(out, this);
+	}
+
+	/**
+	 * Create a {@link JSONOut} writing UTF-8 to a channel, as
+	 * {@link JSONOut#JSONOut(WritableByteChannel)} does.
+	 * 
+	 * @param out
+	 *            the channel to write to. It must be in blocking mode.
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut create(final WritableByteChannel out)
+	{
+		return new JSONOut(new ByteBufferWriter(out), this);
+	}
+
+	/**
+	 * @return the {@link FieldReader}
+	 * @see JSONOut#setFieldReader(FieldReader)
+	 */
+	public FieldReader getFieldReader()
+	{
+		return this.fieldReader;
+	}
+
+	/**
+	 * @return the {@link TypeConverter}
+	 * @see JSONOut#setTypeConverter(TypeConverter)
+	 */
+	public TypeConverter getTypeConverter()
+	{
+		return this.typeConverter;
+	}
+
+	/**
+	 * @return the {@link CharacterFormatter}
+	 * @see JSONOut#setCharFormat(CharacterFormatter)
+	 */
+	public CharacterFormatter getCharFormat()
+	{
+		return this.charFormat;
+	}
+
+	/**
+	 * @return whether serializers are generated
+	 * @see JSONOut#setGenerateSerializers(boolean)
+	 */
+	public boolean isGenerateSerializers()
+	{
+		return this.generateSerializers;
+	}
+
+	/**
+	 * @return the flush interval
+	 * @see JSONOut#setFlushInterval(int)
+	 */
+	public int getFlushInterval()
+	{
+		return this.flushInterval;
+	}
+
+	/**
+	 * @return the pool for parallel writes, or <code>null</code>
+	 * @see JSONOut#setParallelPool(ForkJoinPool)
+	 */
+	public ForkJoinPool getParallelPool()
+	{
+		return this.parallelPool;
+	}
+
+	/**
+	 * @return the chunk size for parallel writes
+	 * @see JSONOut#setParallelChunkSize(int)
+	 */
+	public int getParallelChunkSize()
+	{
+		return this.parallelChunkSize;
+	}
+
+	/**
+	 * The registered serializers, shared by every {@link JSONOut} created,
+	 * or <code>null</code> if there are none.
+	 */
+	SerializerRegistry getSerializers()
+	{
+		return this.serializers;
+	}
+
+	/**
+	 * Collects the settings for a {@link JSONOutFactory}. Unless they are
+	 * changed, they are the same as for a {@link JSONOut} created with a
+	 * constructor. A builder is not thread safe.
+	 * 
+	 * @author J. Chris Folsom
+	 * @version 2.0.2
+	 * @since 2.0.2
+	 */
+	public static final class Builder
+	{
+		/*
+		 * Shared so the per-class metadata it caches outlives any one
+		 * factory.
+		 */
+		private static final FieldReader DEFAULT_FIELD_READER = new CachingAnnotationReader(
+				JSON.class);
+
+		private FieldReader fieldReader = DEFAULT_FIELD_READER;
+
+		private TypeConverter typeConverter = JSONTypeConverter
+				.defaultInstance();
+
+		private CharacterFormatter charFormat = CharFormatter.singleton();
+
+		private boolean generateSerializers;
+
+		private int flushInterval;
+
+		private ForkJoinPool parallelPool;
+
+		private int parallelChunkSize = JSONOut.DEFAULT_PARALLEL_CHUNK_SIZE;
+
+		private SerializerRegistry serializers;
+
+		Builder()
+		{
+			// use JSONOutFactory.builder()
+		}
+
+		/**
+		 * @param reader
+		 *            the {@link FieldReader}
+		 * @return this builder
+		 * @see JSONOut#setFieldReader(FieldReader)
+		 */
+		public Builder fieldReader(final FieldReader reader)
+		{
+			this.fieldReader = reader;
+			return this;
+		}
+
+		/**
+		 * @param converter
+		 *            the {@link TypeConverter}
+		 * @return this builder
+		 * @see JSONOut#setTypeConverter(TypeConverter)
+		 */
+		public Builder typeConverter(final TypeConverter converter)
+		{
+			this.typeConverter = converter;
+			return this;
+		}
+
+		/**
+		 * @param format
+		 *            the {@link CharacterFormatter}
+		 * @return this builder
+		 * @see JSONOut#setCharFormat(CharacterFormatter)
+		 */
+		public Builder charFormat(final CharacterFormatter format)
+		{
+			this.charFormat = format;
+			return this;
+		}
+
+		/**
+		 * @param generate
+		 *            whether serializers are generated
+		 * @return this builder
+		 * @see JSONOut#setGenerateSerializers(boolean)
+		 */
+		public Builder generateSerializers(final boolean generate)
+		{
+			this.generateSerializers = generate;
+			return this;
+		}
+
+		/**
+		 * @param elements
+		 *            the number of elements, or 0
+		 * @return this builder
+		 * @see JSONOut#setFlushInterval(int)
+		 */
+		public Builder flushInterval(final int elements)
+		{
+			if (elements < 0)
+			{
+				throw new IllegalArgumentException("Negative interval: "
+						+ elements);
+			}
+
+			this.flushInterval = elements;
+			return this;
+		}
+
+		/**
+		 * @param pool
+		 *            the pool, or <code>null</code>
+		 * @return this builder
+		 * @see JSONOut#setParallelPool(ForkJoinPool)
+		 */
+		public Builder parallelPool(final ForkJoinPool pool)
+		{
+			this.parallelPool = pool;
+			return this;
+		}
+
+		/**
+		 * @param elements
+		 *            the number of elements
+		 * @return this builder
+		 * @see JSONOut#setParallelChunkSize(int)
+		 */
+		public Builder parallelChunkSize(final int elements)
+		{
+			if (elements < 1)
+			{
+				throw new IllegalArgumentException(
+						"Chunk size must be positive: " + elements);
+			}
+
+			this.parallelChunkSize = elements;
+			return this;
+		}
+
+		/**
+		 * @param <T>
+		 *            the type
+		 * @param type
+		 *            the type to write with the serializer
+		 * @param serializer
+		 *            the serializer
+		 * @return this builder
+		 * @see JSONOut#register(Class, JSONSerializer)
+		 */
+		public <T> Builder register(final Class<T> type,
+				final JSONSerializer<? super T> serializer)
+		{
+			if (this.serializers == null)
+			{
+				this.serializers = new SerializerRegistry();
+			}
+
+			this.serializers.register(type, serializer);
+			return this;
+		}
+
+		/**
+		 * Create the factory. The builder can be changed and used again
+		 * afterwards without affecting it.
+		 * 
+		 * @return the factory
+		 */
+		public JSONOutFactory build()
+		{
+			return new JSONOutFactory(this);
+		}
+	}
+}
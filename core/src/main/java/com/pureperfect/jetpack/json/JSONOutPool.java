@@ -0,0 +1,188 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A bounded pool of {@link JSONOut JSONOuts} that are reused with
+ * {@link JSONOut#reset(OutputStream)}, so writing a response does not have to
+ * allocate a {@link JSONOut} and its buffers each time. The pool can be used
+ * by any number of threads at once; each {@link JSONOut} taken from it must
+ * only be used by one thread until it is released.
+ * 
+ * <pre>
+ * final JSONOut out = pool.acquire(response.getOutputStream());
+ * 
+ * try
+ * {
+ * 	out.write(result);
+ * 	out.flush();
+ * }
+ * finally
+ * {
+ * 	pool.release(out);
+ * }
+ * </pre>
+ * 
+ * <p>
+ * The pool holds at most the given number of idle instances. It starts out
+ * empty unless it is filled with {@link #prefill()}. If none are idle, a new
+ * one is created, and if the pool is full when one is released, it is left to
+ * the garbage collector. Settings changed on an instance, such
+ * as its {@link com.pureperfect.jetpack.FieldReader}, stay with it when it is
+ * released, so everyone using a pool should configure it the same way, or
+ * leave it to the {@link JSONOutFactory} the pool is created with.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONOutPool
+{
+	private final JSONOutFactory factory;
+
+	private final ArrayBlockingQueue<JSONOut> idle;
+
+	/**
+	 * Create a pool holding up to two idle instances per processor.
+	 */
+	public JSONOutPool()
+	{
+		this(2 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Create a pool.
+	 * 
+	 * @param size
+	 *            the largest number of idle instances kept.
+	 */
+	public JSONOutPool(final int size)
+	{
+		this(JSONOutFactory.DEFAULT, size);
+	}
+
+	/**
+	 * Create a pool of instances with the settings of a factory.
+	 * 
+	 * @param factory
+	 *            the factory creating the instances.
+	 * @param size
+	 *            the largest number of idle instances kept.
+	 */
+	public JSONOutPool(final JSONOutFactory factory, final int size)
+	{
+		this.factory = factory;
+		this.idle = new ArrayBlockingQueue<JSONOut>(size);
+	}
+
+	/**
+	 * Fill the pool with idle instances writing UTF-8, so the first requests
+	 * after startup do not have to create them and their buffers.
+	 * 
+	 * @return the number of instances added.
+	 */
+	public int prefill()
+	{
+		int added = 0;
+
+		while (this.idle.remainingCapacity() > 0)
+		{
+			final JSONOut out = this.factory.create((OutputStream) null);
+
+			out.detach();
+
+			if (!this.idle.offer(out))
+			{
+				break;
+			}
+
+			++added;
+		}
+
+		return added;
+	}
+
+	/**
+	 * Get a {@link JSONOut} writing UTF-8 to a stream.
+	 * 
+	 * @param out
+	 *            the stream to write to.
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut acquire(final OutputStream out)
+	{
+		final JSONOut result = this.idle.poll();
+
+		if (result == null)
+		{
+			return this.factory.create(out);
+		}
+
+		result.reset(out);
+
+		return result;
+	}
+
+	/**
+	 * Get a {@link JSONOut} writing to a writer.
+	 * 
+	 * @param out
+	 *            the writer to write to.
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut acquire(final Writer out)
+	{
+		final JSONOut result = this.idle.poll();
+
+		if (result == null)
+		{
+			return this.factory.create(out);
+		}
+
+		result.reset(out);
+
+		return result;
+	}
+
+	/**
+	 * Return a {@link JSONOut} to the pool. It is not flushed or closed, so
+	 * that should be done first. It must not be used after it is released.
+	 * 
+	 * @param out
+	 *            the {@link JSONOut} to return.
+	 */
+	public void release(final JSONOut out)
+	{
+		out.detach();
+
+		this.idle.offer(out);
+	}
+
+	/**
+	 * Get the number of idle instances in the pool.
+	 * 
+	 * @return the number of idle instances.
+	 */
+	public int getIdle()
+	{
+		return this.idle.size();
+	}
+}
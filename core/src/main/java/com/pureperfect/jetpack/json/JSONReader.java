@@ -0,0 +1,560 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Streaming reader of {@link JSON} text, one {@link JSONToken} at a time.
+ * Unlike {@link JSONIn}, nothing is kept after a token has been read, so
+ * documents of any size can be processed in constant memory.
+ * 
+ * <pre>
+ * JSONReader r = new JSONReader(reader);
+ * 
+ * while (r.next() != null)
+ * {
+ * 	if (r.getToken() == JSONToken.FIELD_NAME &amp;&amp; &quot;id&quot;.equals(r.getText()))
+ * 	{
+ * 		r.next();
+ * 		process(r.getLong());
+ * 	}
+ * }
+ * </pre>
+ * 
+ * <p>
+ * The top level values are objects and arrays, any number of which may follow
+ * each other in the input. Characters are read in large blocks, and nothing
+ * is read past the end of a top level value until the next one is asked for.
+ * Structure is checked as the tokens are read; numbers are only converted,
+ * and checked, when one of the number accessors is called.
+ * </p>
+ * 
+ * <p>
+ * UTF-8 encoded input can be read from bytes, which are scanned without
+ * being decoded to characters first, as {@link UTF8JSONIn} does.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONReader implements Closeable
+{
+	private final JSONScanner in;
+
+	/*
+	 * Whether each open container is an object.
+	 */
+	private boolean[] objects = new boolean[16];
+
+	private int depth;
+
+	/*
+	 * Whether nothing has been read yet in the innermost container.
+	 */
+	private boolean first;
+
+	private JSONToken token;
+
+	private String text;
+
+	/*
+	 * The characters of the current literal, in a buffer of the scanner.
+	 */
+	private char[] literal;
+
+	private int literalOffset;
+
+	private int literalLength;
+
+	/**
+	 * Read from a reader, which does not need to be buffered.
+	 * 
+	 * @param in
+	 *            the reader
+	 */
+	public JSONReader(final Reader in)
+	{
+		this(in, JSONIn.DEFAULT_BUFFER_SIZE);
+	}
+
+	JSONReader(final Reader in, final int size)
+	{
+		this(new CharScanner(in, size));
+	}
+
+	/**
+	 * Read UTF-8 encoded bytes from a stream, which does not need to be
+	 * buffered. A byte order mark at the start is skipped.
+	 * 
+	 * @param in
+	 *            the stream
+	 */
+	public JSONReader(final InputStream in)
+	{
+		this(new ByteScanner(in, JSONIn.DEFAULT_BUFFER_SIZE));
+	}
+
+	/**
+	 * Read UTF-8 encoded bytes from an array, without copying them.
+	 * 
+	 * @param data
+	 *            the bytes to read
+	 */
+	public JSONReader(final byte[] data)
+	{
+		this(data, 0, data.length);
+	}
+
+	/**
+	 * Read UTF-8 encoded bytes from part of an array, without copying them.
+	 * 
+	 * @param data
+	 *            the bytes to read
+	 * @param offset
+	 *            the first byte to read
+	 * @param length
+	 *            the number of bytes to read
+	 */
+	public JSONReader(final byte[] data, final int offset, final int length)
+	{
+		this(new ByteScanner(ByteBuffer.wrap(data, offset, length)));
+	}
+
+	JSONReader(final JSONScanner in)
+	{
+		this.in = in;
+	}
+
+	/**
+	 * Close the reader.
+	 * 
+	 * @throws IOException
+	 *             if an error occurs.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.in.close();
+	}
+
+	/**
+	 * Read the next token.
+	 * 
+	 * @return the token, or <code>null</code> at the end of the input after a
+	 *         complete top level value.
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 * @throws MalformedJSONException
+	 *             if the input is not valid {@link JSON}.
+	 */
+	public JSONToken next() throws IOException
+	{
+		if (this.depth == 0)
+		{
+			return this.token = this.readDocument();
+		}
+		else if (this.objects[this.depth - 1])
+		{
+			return this.token = this.token == JSONToken.FIELD_NAME ? this
+					.readFieldValue() : this.readField();
+		}
+		else
+		{
+			return this.token = this.readElement();
+		}
+	}
+
+	/**
+	 * Skip the rest of the object or array just started, so that the next
+	 * token is the one after its end. Does nothing for other tokens.
+	 * 
+	 * @throws IOException
+	 *             if the input cannot be read.
+	 */
+	public void skipChildren() throws IOException
+	{
+		if (this.token == JSONToken.START_OBJECT
+				|| this.token == JSONToken.START_ARRAY)
+		{
+			final int end = this.depth - 1;
+
+			while (this.depth > end)
+			{
+				this.next();
+			}
+		}
+	}
+
+	/**
+	 * Get the current token.
+	 * 
+	 * @return the token last returned by {@link #next()}.
+	 */
+	public JSONToken getToken()
+	{
+		return this.token;
+	}
+
+	/**
+	 * Get the number of objects and arrays the current token is in, counting
+	 * the ones it starts.
+	 * 
+	 * @return the depth of the current token.
+	 */
+	public int getDepth()
+	{
+		return this.depth;
+	}
+
+	/**
+	 * Get the text of the current token: the name of a field, a string with
+	 * its escape sequences decoded, or the literal text of any other value.
+	 * 
+	 * @return the text of the current token, or <code>null</code> if there is
+	 *         none.
+	 */
+	public String getText()
+	{
+		if (this.text == null && this.literal != null)
+		{
+			this.text = new String(this.literal, this.literalOffset,
+					this.literalLength);
+		}
+
+		return this.text;
+	}
+
+	/**
+	 * Get the current number as {@link JSONIn} reads it: an {@link Integer},
+	 * {@link Long}, {@link BigInteger} or {@link Double}.
+	 * 
+	 * @return the number.
+	 */
+	public Number getNumber()
+	{
+		this.expectNumber();
+
+		return JSONSyntax.number(this.literal, this.literalOffset,
+				this.literalLength);
+	}
+
+	/**
+	 * Get the current number as an int.
+	 * 
+	 * @return the number, truncated if it has a fraction.
+	 * @throws ArithmeticException
+	 *             if it does not fit in an int.
+	 */
+	public int getInt()
+	{
+		this.expectNumber();
+
+		if (this.literalLength <= 9
+				&& JSONSyntax.isInteger(this.literal, this.literalOffset,
+						this.literalLength))
+		{
+			return (int) JSONSyntax.parseLong(this.literal,
+					this.literalOffset, this.literalLength);
+		}
+
+		final long value = this.getLong();
+
+		if ((int) value != value)
+		{
+			throw new ArithmeticException("Out of int range: "
+					+ this.getText());
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Get the current number as a long.
+	 * 
+	 * @return the number, truncated if it has a fraction.
+	 * @throws ArithmeticException
+	 *             if it does not fit in a long.
+	 */
+	public long getLong()
+	{
+		this.expectNumber();
+
+		if (this.literalLength <= 18
+				&& JSONSyntax.isInteger(this.literal, this.literalOffset,
+						this.literalLength))
+		{
+			return JSONSyntax.parseLong(this.literal, this.literalOffset,
+					this.literalLength);
+		}
+
+		final Number value = this.getNumber();
+
+		final double d = value.doubleValue();
+
+		if (value instanceof BigInteger
+				&& ((BigInteger) value).bitLength() > 63
+				|| value instanceof Double && !(d >= -0x1p63 && d < 0x1p63))
+		{
+			throw new ArithmeticException("Out of long range: "
+					+ this.getText());
+		}
+
+		return value.longValue();
+	}
+
+	/**
+	 * Get the current number as a double.
+	 * 
+	 * @return the number.
+	 */
+	public double getDouble()
+	{
+		this.expectNumber();
+
+		return Double.parseDouble(this.getText());
+	}
+
+	/**
+	 * Get the current boolean.
+	 * 
+	 * @return <code>true</code> for {@link JSONToken#VALUE_TRUE}.
+	 * @throws IllegalStateException
+	 *             if the current token is not a boolean.
+	 */
+	public boolean getBoolean()
+	{
+		if (this.token != JSONToken.VALUE_TRUE
+				&& this.token != JSONToken.VALUE_FALSE)
+		{
+			throw new IllegalStateException("Not a boolean: " + this.token);
+		}
+
+		return this.token == JSONToken.VALUE_TRUE;
+	}
+
+	private void expectNumber()
+	{
+		if (this.token != JSONToken.VALUE_NUMBER)
+		{
+			throw new IllegalStateException("Not a number: " + this.token);
+		}
+	}
+
+	private JSONToken readDocument() throws IOException
+	{
+		this.text = null;
+		this.literal = null;
+
+		final int c = this.in.peek();
+
+		if (c < 0)
+		{
+			return null;
+		}
+
+		this.in.skip();
+
+		if (c == '{')
+		{
+			return this.push(true);
+		}
+		else if (c == '[')
+		{
+			return this.push(false);
+		}
+		else
+		{
+			throw new MalformedJSONException("Was expecting either { or [");
+		}
+	}
+
+	private JSONToken readField() throws IOException
+	{
+		this.text = null;
+		this.literal = null;
+
+		char current = this.skipWhitespace();
+
+		if (current == '}')
+		{
+			this.in.skip();
+			return this.pop(JSONToken.END_OBJECT);
+		}
+
+		if (!this.first)
+		{
+			this.in.skip();
+
+			if (current != ',')
+			{
+				throw new MalformedJSONException(
+						"Expecting ',' or '}' after field, found '" + current
+								+ "'");
+			}
+
+			current = this.skipWhitespace();
+		}
+
+		if (current != '"')
+		{
+			throw new MalformedJSONException(
+					"Expecting '\"' at start of field.");
+		}
+
+		this.in.skip();
+
+		this.text = this.in.readString();
+		this.first = false;
+
+		return JSONToken.FIELD_NAME;
+	}
+
+	private JSONToken readFieldValue() throws IOException
+	{
+		final String fieldName = this.text;
+
+		if (this.skipWhitespace() != ':')
+		{
+			throw new MalformedJSONException("Expecting ':' after field: "
+					+ fieldName);
+		}
+
+		this.in.skip();
+
+		return this.readValue();
+	}
+
+	private JSONToken readElement() throws IOException
+	{
+		final char current = this.skipWhitespace();
+
+		if (current == ']')
+		{
+			this.in.skip();
+			this.text = null;
+			this.literal = null;
+			return this.pop(JSONToken.END_ARRAY);
+		}
+
+		if (!this.first)
+		{
+			this.in.skip();
+
+			if (current != ',')
+			{
+				throw new MalformedJSONException(
+						"Expecting ',' or ']' after array element, found '"
+								+ current + "'");
+			}
+		}
+
+		this.first = false;
+
+		return this.readValue();
+	}
+
+	private JSONToken readValue() throws IOException
+	{
+		this.text = null;
+		this.literal = null;
+
+		final char current = this.skipWhitespace();
+
+		if (current == '{')
+		{
+			this.in.skip();
+			return this.push(true);
+		}
+		else if (current == '[')
+		{
+			this.in.skip();
+			return this.push(false);
+		}
+		else if (current == '"')
+		{
+			this.in.skip();
+			this.text = this.in.readString();
+			return JSONToken.VALUE_STRING;
+		}
+		else
+		{
+			return this.readLiteral();
+		}
+	}
+
+	private JSONToken push(final boolean object)
+	{
+		if (this.depth == this.objects.length)
+		{
+			final boolean[] grown = new boolean[this.depth * 2];
+
+			System.arraycopy(this.objects, 0, grown, 0, this.depth);
+
+			this.objects = grown;
+		}
+
+		this.objects[this.depth++] = object;
+		this.first = true;
+
+		return object ? JSONToken.START_OBJECT : JSONToken.START_ARRAY;
+	}
+
+	private JSONToken pop(final JSONToken end)
+	{
+		--this.depth;
+		this.first = false;
+
+		return end;
+	}
+
+	/**
+	 * Skip whitespace and get the next character without consuming it.
+	 */
+	private char skipWhitespace() throws IOException
+	{
+		final int c = this.in.peek();
+
+		if (c < 0)
+		{
+			throw new MalformedJSONException("Unexpected end of input");
+		}
+
+		return (char) c;
+	}
+
+	/**
+	 * Read a number, <code>true</code>, <code>false</code> or
+	 * <code>null</code>, up to the next delimiter.
+	 */
+	private JSONToken readLiteral() throws IOException
+	{
+		this.in.readLiteral();
+
+		this.literal = this.in.literal;
+		this.literalOffset = this.in.literalOffset;
+		this.literalLength = this.in.literalLength;
+
+		return JSONSyntax.literal(this.literal, this.literalOffset,
+				this.literalLength);
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The source of the characters a {@link JSONReader} reads: whitespace,
+ * strings and literals are scanned here, and the structure is checked by the
+ * reader.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+abstract class JSONScanner implements Closeable
+{
+	/*
+	 * The characters of the last literal read. They may be in the buffer of
+	 * the scanner, so they are only valid until the next call.
+	 */
+	char[] literal;
+
+	int literalOffset;
+
+	int literalLength;
+
+	/**
+	 * Skip whitespace and get the next character without consuming it.
+	 * 
+	 * @return the character, or -1 at the end of the input.
+	 */
+	abstract int peek() throws IOException;
+
+	/**
+	 * Consume the character returned by {@link #peek()}.
+	 */
+	abstract void skip();
+
+	/**
+	 * Read the rest of a string after the opening quote, and the closing
+	 * quote.
+	 * 
+	 * @return the string with its escape sequences decoded.
+	 */
+	abstract String readString() throws IOException;
+
+	/**
+	 * Read a number, <code>true</code>, <code>false</code> or
+	 * <code>null</code>, up to the next delimiter, into {@link #literal}.
+	 */
+	abstract void readLiteral() throws IOException;
+}
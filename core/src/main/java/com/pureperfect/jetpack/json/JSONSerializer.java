@@ -0,0 +1,45 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+
+/**
+ * Writes objects of one type to a {@link JSONOut}. Implementations write the
+ * complete JSON value for the object, e.g. the braces and all of the fields of
+ * an object.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ * 
+ * @param <T>
+ *            the type of object written.
+ */
+public interface JSONSerializer<T>
+{
+	/**
+	 * Write an object to the output.
+	 * 
+	 * @param o
+	 *            the object to write, never <code>null</code>.
+	 * @param out
+	 *            the output to write to.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(T o, JSONOut out) throws IOException;
+}
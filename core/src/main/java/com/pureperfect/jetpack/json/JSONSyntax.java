@@ -0,0 +1,438 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.math.BigInteger;
+
+/**
+ * The lexical rules of {@link JSON} shared by the parsers: whitespace and
+ * delimiters, escape sequences, the validation of UTF-8 and the
+ * classification and conversion of literals. Characters are passed as
+ * <code>int</code>, so bytes can be passed as unsigned values.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class JSONSyntax
+{
+	/**
+	 * Returned by {@link #escape(int)} for a unicode escape, which is followed
+	 * by four hex digits.
+	 */
+	static final int UNICODE = -1;
+
+	/**
+	 * The range of the continuation bytes of a UTF-8 sequence, except where
+	 * {@link #secondMin(int)} and {@link #secondMax(int)} narrow it.
+	 */
+	static final int CONTINUATION_MIN = 0x80;
+
+	static final int CONTINUATION_MAX = 0xBF;
+
+	private JSONSyntax()
+	{
+		// hide me
+	}
+
+	/**
+	 * Check for one of the four whitespace characters of JSON: space, tab,
+	 * line feed and carriage return. Other unicode whitespace is not
+	 * skipped.
+	 */
+	static boolean isWhitespace(final int c)
+	{
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+	}
+
+	/**
+	 * Check for a character that ends a literal.
+	 */
+	static boolean isDelimiter(final int c)
+	{
+		return c == ',' || c == '}' || c == ']' || isWhitespace(c);
+	}
+
+	/**
+	 * Decode the character after the backslash of an escape sequence.
+	 * 
+	 * @return the character, or {@link #UNICODE} for a unicode escape.
+	 * @throws MalformedJSONException
+	 *             if it is not a valid escape sequence.
+	 */
+	static int escape(final int c)
+	{
+		switch (c)
+		{
+			case '"':
+			case '\\':
+			case '/':
+				return c;
+			case 'b':
+				return '\b';
+			case 'f':
+				return '\f';
+			case 'n':
+				return '\n';
+			case 'r':
+				return '\r';
+			case 't':
+				return '\t';
+			case 'u':
+				return UNICODE;
+			default:
+				throw new MalformedJSONException("Invalid escape: \\"
+						+ (char) c);
+		}
+	}
+
+	/**
+	 * Get the value of a digit of a unicode escape.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if it is not a hex digit.
+	 */
+	static int hexDigit(final int c)
+	{
+		final int digit = Character.digit(c, 16);
+
+		if (digit < 0)
+		{
+			throw new MalformedJSONException("Invalid unicode escape");
+		}
+
+		return digit;
+	}
+
+	/**
+	 * Get the number of continuation bytes after the lead byte of a UTF-8
+	 * sequence, rejecting lead bytes of overlong encodings and of code points
+	 * above U+10FFFF.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if it is not a valid lead byte.
+	 */
+	static int continuations(final int lead)
+	{
+		if (lead >= 0xC2 && lead <= 0xDF)
+		{
+			return 1;
+		}
+		else if (lead >= 0xE0 && lead <= 0xEF)
+		{
+			return 2;
+		}
+		else if (lead >= 0xF0 && lead <= 0xF4)
+		{
+			return 3;
+		}
+
+		throw new MalformedJSONException("Invalid UTF-8");
+	}
+
+	/**
+	 * Get the bits of the code point in a valid lead byte.
+	 */
+	static int leadBits(final int lead)
+	{
+		return lead & (lead < 0xE0 ? 0x1F : lead < 0xF0 ? 0x0F : 0x07);
+	}
+
+	/**
+	 * Get the smallest second byte after a lead byte, which rules out
+	 * overlong encodings.
+	 */
+	static int secondMin(final int lead)
+	{
+		return lead == 0xE0 ? 0xA0 : lead == 0xF0 ? 0x90 : CONTINUATION_MIN;
+	}
+
+	/**
+	 * Get the largest second byte after a lead byte, which rules out
+	 * surrogates and code points above U+10FFFF.
+	 */
+	static int secondMax(final int lead)
+	{
+		return lead == 0xED ? 0x9F : lead == 0xF4 ? 0x8F : CONTINUATION_MAX;
+	}
+
+	/**
+	 * Check a continuation byte and get its six bits of the code point.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if it is not in the range.
+	 */
+	static int continuation(final int c, final int min, final int max)
+	{
+		if (c < min || c > max)
+		{
+			throw new MalformedJSONException("Invalid UTF-8");
+		}
+
+		return c & 0x3F;
+	}
+
+	/**
+	 * Classify a number, <code>true</code>, <code>false</code> or
+	 * <code>null</code>.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if it is none of these.
+	 */
+	static JSONToken literal(final char[] b, final int off, final int len)
+	{
+		if (len == 0)
+		{
+			throw new MalformedJSONException("Expecting a value");
+		}
+
+		final char first = b[off];
+
+		if (first == 'n' && matches(b, off, len, "null"))
+		{
+			return JSONToken.VALUE_NULL;
+		}
+		else if (first == 't' && matches(b, off, len, "true"))
+		{
+			return JSONToken.VALUE_TRUE;
+		}
+		else if (first == 'f' && matches(b, off, len, "false"))
+		{
+			return JSONToken.VALUE_FALSE;
+		}
+		else if (!isNumber(b, off, len))
+		{
+			throw new MalformedJSONException("Invalid value: "
+					+ new String(b, off, len));
+		}
+
+		return JSONToken.VALUE_NUMBER;
+	}
+
+	/**
+	 * Convert a literal to the value {@link JSONIn} reads for it.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if it is not a valid literal.
+	 */
+	static Object value(final char[] b, final int off, final int len)
+	{
+		switch (literal(b, off, len))
+		{
+			case VALUE_NULL:
+				return null;
+			case VALUE_TRUE:
+				return Boolean.TRUE;
+			case VALUE_FALSE:
+				return Boolean.FALSE;
+			default:
+				return number(b, off, len);
+		}
+	}
+
+	/**
+	 * Convert a number: an {@link Integer} if it has up to nine characters, a
+	 * {@link Double} if it has a fraction or exponent, otherwise a
+	 * {@link Long} or {@link BigInteger}. The number must have been checked
+	 * by {@link #literal(char[], int, int)}.
+	 */
+	static Number number(final char[] b, final int off, final int len)
+	{
+		final boolean decimal = isDecimal(b, off, len);
+
+		if (!decimal && len <= 9 && isInteger(b, off, len))
+		{
+			return Integer.valueOf((int) parseLong(b, off, len));
+		}
+
+		return number(new String(b, off, len), decimal);
+	}
+
+	private static Number number(final String s, final boolean decimal)
+	{
+		if (decimal)
+		{
+			return Double.valueOf(s);
+		}
+		else if (s.length() > 9)
+		{
+			try
+			{
+				return Long.valueOf(s);
+			}
+			catch (final NumberFormatException e)
+			{
+				if (isInteger(s))
+				{
+					return new BigInteger(s);
+				}
+
+				throw e;
+			}
+		}
+		else
+		{
+			return Integer.valueOf(s);
+		}
+	}
+
+	private static boolean isInteger(final String s)
+	{
+		for (int i = s.charAt(0) == '-' ? 1 : 0; i < s.length(); ++i)
+		{
+			if (s.charAt(i) < '0' || s.charAt(i) > '9')
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isDecimal(final char[] b, final int off,
+			final int len)
+	{
+		for (int i = off; i < off + len; ++i)
+		{
+			final char c = b[i];
+
+			if (c == '.' || c == 'e' || c == 'E')
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check a literal against the number grammar of JSON: an optional minus
+	 * sign, an integer part without leading zeros, and an optional fraction
+	 * and exponent. Forms {@link Double#valueOf(String)} also accepts, like
+	 * "+1", ".5" or "1.5d", are rejected.
+	 */
+	static boolean isNumber(final char[] b, final int off, final int len)
+	{
+		final int end = off + len;
+
+		int i = off < end && b[off] == '-' ? off + 1 : off;
+
+		if (i < end && b[i] == '0')
+		{
+			++i;
+		}
+		else if ((i = digits(b, i, end)) < 0)
+		{
+			return false;
+		}
+
+		if (i < end && b[i] == '.' && (i = digits(b, i + 1, end)) < 0)
+		{
+			return false;
+		}
+
+		if (i < end && (b[i] == 'e' || b[i] == 'E'))
+		{
+			++i;
+
+			if (i < end && (b[i] == '+' || b[i] == '-'))
+			{
+				++i;
+			}
+
+			i = digits(b, i, end);
+		}
+
+		return i == end;
+	}
+
+	/**
+	 * Skip at least one digit.
+	 * 
+	 * @return the index after the digits, or -1 if there are none.
+	 */
+	private static int digits(final char[] b, final int off, final int end)
+	{
+		int i = off;
+
+		while (i < end && b[i] >= '0' && b[i] <= '9')
+		{
+			++i;
+		}
+
+		return i == off ? -1 : i;
+	}
+
+	/**
+	 * Check for an optional minus sign followed by at least one digit.
+	 */
+	static boolean isInteger(final char[] b, final int off, final int len)
+	{
+		int i = b[off] == '-' ? off + 1 : off;
+
+		if (i == off + len)
+		{
+			return false;
+		}
+
+		for (; i < off + len; ++i)
+		{
+			if (b[i] < '0' || b[i] > '9')
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean matches(final char[] b, final int off,
+			final int len, final String word)
+	{
+		if (len != word.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < len; ++i)
+		{
+			if (b[off + i] != word.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Parse an integer of at most eighteen characters without creating a
+	 * string.
+	 */
+	static long parseLong(final char[] b, final int off, final int len)
+	{
+		final boolean negative = b[off] == '-';
+
+		long result = 0;
+
+		for (int i = negative ? off + 1 : off; i < off + len; ++i)
+		{
+			result = result * 10 + b[i] - '0';
+		}
+
+		return negative ? -result : result;
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+/**
+ * The tokens returned by {@link JSONReader#next()}.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public enum JSONToken
+{
+	/**
+	 * The start of an object: <code>{</code>
+	 */
+	START_OBJECT,
+
+	/**
+	 * The end of an object: <code>}</code>
+	 */
+	END_OBJECT,
+
+	/**
+	 * The start of an array: <code>[</code>
+	 */
+	START_ARRAY,
+
+	/**
+	 * The end of an array: <code>]</code>
+	 */
+	END_ARRAY,
+
+	/**
+	 * The name of a field in an object. The value of the field is the next
+	 * token.
+	 */
+	FIELD_NAME,
+
+	/**
+	 * A string value.
+	 */
+	VALUE_STRING,
+
+	/**
+	 * A number value.
+	 */
+	VALUE_NUMBER,
+
+	/**
+	 * <code>true</code>
+	 */
+	VALUE_TRUE,
+
+	/**
+	 * <code>false</code>
+	 */
+	VALUE_FALSE,
+
+	/**
+	 * <code>null</code>
+	 */
+	VALUE_NULL
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright [2008] PurePerfect.com
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * 
+ * You may obtain a copy of the License at 
+ * 		http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, 
+ * either express or implied. 
+ * 
+ * See the License for the specific language governing permissions
+ * and limitations under the License. 
+ */
+package com.pureperfect.jetpack.json;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import com.pureperfect.jetpack.TypeConverter;
+import com.pureperfect.jetpack.TypeWriter;
+
+/**
+ * Converts types to character sequences. Dates and Calendars are converted to
+ * time in milliseconds in the <a href="http://en.wikipedia.org/wiki/Unix_time">UNIX Epoch</a>.
+ * 
+ * <p>
+ * As a {@link TypeWriter}, integers are formatted two digits at a time from
+ * lookup tables. Doubles and floats are written with the fewest digits that
+ * read back as the same value; see {@link Schubfach} for the format.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0
+ * @since 2.0
+ */
+class JSONTypeConverter implements TypeConverter, TypeWriter
+{
+	private static final JSONTypeConverter defaultInstance = new JSONTypeConverter();
+
+	private static final char[] MIN_LONG = "-9223372036854775808"
+			.toCharArray();
+
+	/*
+	 * The tens and ones digits of the numbers 0 to 99.
+	 */
+	private static final char[] TENS = new char[100];
+
+	private static final char[] ONES = new char[100];
+
+	static
+	{
+		for (int i = 0; i < 100; ++i)
+		{
+			TENS[i] = (char) ('0' + i / 10);
+			ONES[i] = (char) ('0' + i % 10);
+		}
+	}
+
+	/**
+	 * Singleton instance of this class.
+	 * 
+	 * @return the default instance.
+	 */
+	public static JSONTypeConverter defaultInstance()
+	{
+		return defaultInstance;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final boolean b)
+	{
+		return String.valueOf(b);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final byte b)
+	{
+		return String.valueOf(b);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final double d)
+	{
+		final char[] buf = new char[MAX_LENGTH];
+
+		return new String(buf, 0, Schubfach.write(d, buf, 0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final float f)
+	{
+		final char[] buf = new char[MAX_LENGTH];
+
+		return new String(buf, 0, Schubfach.write(f, buf, 0));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final int i)
+	{
+		return String.valueOf(i);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final long l)
+	{
+		return String.valueOf(l);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final Object o)
+	{
+		if (o instanceof Date)
+		{
+			final Date d = (Date) o;
+			return String.valueOf(d.getTime());
+		}
+		else if (o instanceof Calendar)
+		{
+			final Calendar c = (Calendar) o;
+
+			return String.valueOf(c.getTime().getTime());
+		}
+		else if (o instanceof Double)
+		{
+			return this.convert(((Double) o).doubleValue());
+		}
+		else if (o instanceof Float)
+		{
+			return this.convert(((Float) o).floatValue());
+		}
+		else
+		{
+			return String.valueOf(o);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence convert(final short s)
+	{
+		return String.valueOf(s);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public CharSequence getNull()
+	{
+		return "null";
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int write(final double d, final char[] buf, final int offset)
+	{
+		return Schubfach.write(d, buf, offset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int write(final float f, final char[] buf, final int offset)
+	{
+		return Schubfach.write(f, buf, offset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int write(final int i, final char[] buf, final int offset)
+	{
+		return this.write((long) i, buf, offset);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int write(long l, final char[] buf, int offset)
+	{
+		if (l == Long.MIN_VALUE)
+		{
+			System.arraycopy(MIN_LONG, 0, buf, offset, MIN_LONG.length);
+
+			return offset + MIN_LONG.length;
+		}
+
+		if (l < 0)
+		{
+			buf[offset++] = '-';
+			l = -l;
+		}
+
+		final int end = offset + digits(l);
+
+		int pos = end;
+
+		while (l > Integer.MAX_VALUE)
+		{
+			final long q = l / 100;
+			final int r = (int) (l - q * 100);
+
+			l = q;
+
+			buf[--pos] = ONES[r];
+			buf[--pos] = TENS[r];
+		}
+
+		int i = (int) l;
+
+		while (i >= 100)
+		{
+			final int q = i / 100;
+			final int r = i - q * 100;
+
+			i = q;
+
+			buf[--pos] = ONES[r];
+			buf[--pos] = TENS[r];
+		}
+
+		if (i >= 10)
+		{
+			buf[--pos] = ONES[i];
+			buf[--pos] = TENS[i];
+		}
+		else
+		{
+			buf[--pos] = (char) ('0' + i);
+		}
+
+		return end;
+	}
+
+	/**
+	 * The number of digits in a positive long.
+	 */
+	private static int digits(final long l)
+	{
+		long p = 10;
+
+		for (int i = 1; i < 19; ++i)
+		{
+			if (l < p)
+			{
+				return i;
+			}
+
+			p *= 10;
+		}
+
+		return 19;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Unmarshalls UTF-8 encoded {@link JSON} from a memory mapped file, with the
+ * same results as {@link JSONIn}. The file is mapped with
+ * {@link FileChannel#map} in windows of at most {@link #DEFAULT_WINDOW_SIZE}
+ * bytes, so files larger than 2 GB can be parsed. The values are built from
+ * the tokens of a {@link JSONReader}, which scans the mapped bytes where they
+ * are, without read calls or copying them to a buffer. Pages are loaded by
+ * the operating system as they are needed and stay in its cache for later
+ * scans of the same file.
+ * 
+ * <p>
+ * Java has no way to unmap a file explicitly. Each window is dropped when the
+ * parser moves on to the next one, but it stays mapped, taking up address
+ * space, until the garbage collector frees the buffer. The windows are kept
+ * small enough that this does not add up to much.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class MappedJSONIn extends JSONIn
+{
+	/**
+	 * The largest part of a file mapped at one time, 64 MB.
+	 */
+	public static final long DEFAULT_WINDOW_SIZE = 1L << 26;
+
+	/**
+	 * Parse a file.
+	 * 
+	 * @param file
+	 *            the file to parse
+	 * @throws IOException
+	 *             if the file cannot be opened.
+	 */
+	public MappedJSONIn(final File file) throws IOException
+	{
+		this(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+	}
+
+	/**
+	 * Parse a file from the current position of the channel to its end. The
+	 * channel is closed with this.
+	 * 
+	 * @param channel
+	 *            the file to parse
+	 * @throws IOException
+	 *             if the size or position of the file cannot be read.
+	 */
+	public MappedJSONIn(final FileChannel channel) throws IOException
+	{
+		this(channel, DEFAULT_WINDOW_SIZE);
+	}
+
+	MappedJSONIn(final FileChannel channel, final long window)
+			throws IOException
+	{
+		super(new JSONReader(new Windows(channel, window)));
+	}
+
+	/**
+	 * Parse a buffer, typically a
+	 * {@link java.nio.MappedByteBuffer MappedByteBuffer}, from its position to
+	 * its limit. The position of the buffer is not changed.
+	 * 
+	 * @param buffer
+	 *            the bytes to parse
+	 */
+	public MappedJSONIn(final ByteBuffer buffer)
+	{
+		super(new JSONReader(new ByteScanner(buffer)));
+	}
+
+	/**
+	 * Scans the mapped windows of a file in order.
+	 */
+	static final class Windows extends ByteScanner
+	{
+		private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+		private final FileChannel channel;
+
+		private final long window;
+
+		private long position;
+
+		private final long end;
+
+		Windows(final FileChannel channel, final long window)
+				throws IOException
+		{
+			super(EMPTY);
+
+			if (window < 1 || window > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("Window size: " + window);
+			}
+
+			this.channel = channel;
+			this.window = window;
+			this.position = channel.position();
+			this.end = channel.size();
+		}
+
+		/**
+		 * Map the next window, dropping the current one.
+		 */
+		@Override
+		boolean refill() throws IOException
+		{
+			if (this.position >= this.end)
+			{
+				this.reset(EMPTY, 0, 0);
+				return false;
+			}
+
+			final int size = (int) Math.min(this.window, this.end
+					- this.position);
+
+			this.reset(this.channel.map(FileChannel.MapMode.READ_ONLY,
+					this.position, size), 0, size);
+
+			this.position += size;
+
+			return true;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			this.reset(EMPTY, 0, 0);
+			this.channel.close();
+		}
+	}
+}
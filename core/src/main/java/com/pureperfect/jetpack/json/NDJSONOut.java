@@ -0,0 +1,273 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.pureperfect.jetpack.Output;
+
+/**
+ * Writes records as <a href="http://ndjson.org/">newline delimited JSON</a>:
+ * each record is written by a {@link JSONOut} and followed by a newline.
+ * 
+ * <p>
+ * Records are collected in a block of the given size, which is written to the
+ * underlying stream when it is full, so many records are passed on with one
+ * write. If a maximum delay is set, the block is also flushed when a record is
+ * written more than that long after the last flush. The delay is only checked
+ * when records are written; there is no background thread, so call
+ * {@link #flush()} when no more records are coming for a while.
+ * </p>
+ * 
+ * <p>
+ * A line break may only appear in {@link JSON} as whitespace between tokens,
+ * so line breaks in text written as it is, like a {@link RawJSON} value, are
+ * written as spaces to keep each record on one line.
+ * </p>
+ * 
+ * <p>
+ * Like {@link JSONOut}, instances of this class are not thread safe.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class NDJSONOut implements Output
+{
+	/**
+	 * The default block size in bytes or characters.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	private final JSONOut out;
+
+	private final long maxDelay;
+
+	private long lastFlush;
+
+	/**
+	 * Write UTF-8 to a stream in blocks of {@link #DEFAULT_BLOCK_SIZE} bytes,
+	 * only flushing when full.
+	 * 
+	 * @param out
+	 *            the stream to write to.
+	 */
+	public NDJSONOut(final OutputStream out)
+	{
+		this(out, DEFAULT_BLOCK_SIZE, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Write UTF-8 to a stream.
+	 * 
+	 * @param out
+	 *            the stream to write to.
+	 * @param blockSize
+	 *            the number of bytes collected before they are written.
+	 * @param maxDelay
+	 *            the longest time between flushes, or 0 to only write full
+	 *            blocks.
+	 * @param unit
+	 *            the unit of the delay.
+	 */
+	public NDJSONOut(final OutputStream out, final int blockSize,
+			final long maxDelay, final TimeUnit unit)
+	{
+		this(new Records(new UTF8Writer(out, blockSize)), maxDelay, unit);
+	}
+
+	/**
+	 * Write to a writer.
+	 * 
+	 * @param out
+	 *            the writer to write to.
+	 * @param blockSize
+	 *            the number of characters collected before they are written.
+	 * @param maxDelay
+	 *            the longest time between flushes, or 0 to only write full
+	 *            blocks.
+	 * @param unit
+	 *            the unit of the delay.
+	 */
+	public NDJSONOut(final Writer out, final int blockSize,
+			final long maxDelay, final TimeUnit unit)
+	{
+		this(new Records(new BufferedWriter(out, blockSize)), maxDelay, unit);
+	}
+
+	private NDJSONOut(final JSONOut out, final long maxDelay,
+			final TimeUnit unit)
+	{
+		if (maxDelay < 0)
+		{
+			throw new IllegalArgumentException("Negative delay: " + maxDelay);
+		}
+
+		this.out = out;
+		this.maxDelay = unit.toNanos(maxDelay);
+		this.lastFlush = System.nanoTime();
+	}
+
+	/**
+	 * Get the {@link JSONOut} writing the records, e.g. to set its
+	 * {@link com.pureperfect.jetpack.FieldReader}.
+	 * 
+	 * @return the {@link JSONOut}
+	 */
+	public JSONOut getOut()
+	{
+		return this.out;
+	}
+
+	/**
+	 * Write one record and a newline.
+	 * 
+	 * @param record
+	 *            the record to write.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void write(final Object record) throws IOException
+	{
+		this.append(record);
+		this.flushIfDue();
+	}
+
+	/**
+	 * Write a batch of records, each followed by a newline.
+	 * 
+	 * @param records
+	 *            the records to write.
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void writeAll(final Iterable<?> records) throws IOException
+	{
+		for (final Object record : records)
+		{
+			this.append(record);
+			this.flushIfDue();
+		}
+	}
+
+	/**
+	 * Write any records still in the block to the stream and flush it.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	@Override
+	public void flush() throws IOException
+	{
+		this.out.flush();
+		this.lastFlush = System.nanoTime();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.out.close();
+	}
+
+	private void append(final Object record) throws IOException
+	{
+		this.out.write(record);
+		this.out.writeRaw('\n');
+	}
+
+	private void flushIfDue() throws IOException
+	{
+		if (this.maxDelay > 0
+				&& System.nanoTime() - this.lastFlush >= this.maxDelay)
+		{
+			this.flush();
+		}
+	}
+
+	/**
+	 * Writes raw text with its line breaks replaced by spaces.
+	 */
+	private static final class Records extends JSONOut
+	{
+		Records(final Writer out)
+		{
+			super(out);
+		}
+
+		@Override
+		public void writeRaw(final CharSequence json) throws IOException
+		{
+			for (int i = 0; i < json.length(); ++i)
+			{
+				final char c = json.charAt(i);
+
+				if (c == '\n' || c == '\r')
+				{
+					final StringBuilder line = new StringBuilder(json);
+
+					for (int j = i; j < line.length(); ++j)
+					{
+						if (line.charAt(j) == '\n' || line.charAt(j) == '\r')
+						{
+							line.setCharAt(j, ' ');
+						}
+					}
+
+					super.writeRaw(line);
+
+					return;
+				}
+			}
+
+			super.writeRaw(json);
+		}
+
+		@Override
+		void writeRaw(final byte[] utf8, final int off, final int len)
+				throws IOException
+		{
+			for (int i = off; i < off + len; ++i)
+			{
+				if (utf8[i] == '\n' || utf8[i] == '\r')
+				{
+					final byte[] line = Arrays.copyOfRange(utf8, off, off
+							+ len);
+
+					for (int j = i - off; j < len; ++j)
+					{
+						if (line[j] == '\n' || line[j] == '\r')
+						{
+							line[j] = ' ';
+						}
+					}
+
+					super.writeRaw(line, 0, len);
+
+					return;
+				}
+			}
+
+			super.writeRaw(utf8, off, len);
+		}
+	}
+}
@@ -0,0 +1,673 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import com.pureperfect.jetpack.Input;
+
+/**
+ * Unmarshalls UTF-8 encoded {@link JSON} pushed to it in chunks, for example
+ * as they arrive from a non-blocking channel, into the same {@link JSONData}
+ * as {@link JSONIn}. Chunks may end anywhere, even inside a string or a
+ * multi-byte character; the parser keeps its place and carries on with the
+ * next chunk. Each top level value is available from {@link #read()} as soon
+ * as its last byte has been fed. A byte order mark at the start of the input
+ * is skipped, as it is by {@link UTF8JSONIn}.
+ * 
+ * <pre>
+ * NonBlockingJSONIn in = new NonBlockingJSONIn();
+ * 
+ * // for each chunk received
+ * in.feed(chunk);
+ * 
+ * for (Object value = in.read(); value != null; value = in.read())
+ * {
+ * 	handle(value);
+ * }
+ * 
+ * // once the input is complete
+ * in.close();
+ * </pre>
+ * 
+ * <p>
+ * Feeding never blocks and the chunks are not kept, so a request can be
+ * parsed while the rest of it is still being received. Instances are not
+ * thread safe, and cannot be used after a {@link MalformedJSONException}.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class NonBlockingJSONIn implements Input
+{
+	private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+	/*
+	 * What is expected next.
+	 */
+	private static final int DOCUMENT = 0;
+
+	private static final int VALUE = 1;
+
+	private static final int FIRST_ELEMENT = 2;
+
+	private static final int FIRST_FIELD = 3;
+
+	private static final int FIELD = 4;
+
+	private static final int COLON = 5;
+
+	private static final int AFTER_VALUE = 6;
+
+	private static final int STRING = 7;
+
+	private static final int LITERAL = 8;
+
+	private int state = DOCUMENT;
+
+	/*
+	 * The open objects and arrays, and the name of the field being read in
+	 * each object.
+	 */
+	private Object[] containers = new Object[16];
+
+	private String[] names = new String[16];
+
+	private int depth;
+
+	private final Queue<Object> values = new ArrayDeque<Object>();
+
+	/*
+	 * The string read so far.
+	 */
+	private final StringBuilder scratch = new StringBuilder(64);
+
+	/*
+	 * The literal read so far.
+	 */
+	private char[] literal = new char[32];
+
+	private int literalLength;
+
+	private boolean fieldName;
+
+	/*
+	 * -1 outside an escape sequence, 0 after the backslash, or 1 to 4 for the
+	 * next digit of a unicode escape.
+	 */
+	private int escape = -1;
+
+	/*
+	 * The continuation bytes still to come in a multi-byte character, the
+	 * range of the next one, and the code point so far.
+	 */
+	private int continuations;
+
+	private int min;
+
+	private int max;
+
+	private int code;
+
+	/*
+	 * The bytes of a byte order mark read at the start of the input, or -1
+	 * once past it.
+	 */
+	private int byteOrderMark;
+
+	private byte[] block;
+
+	private boolean closed;
+
+	/**
+	 * Parse the remaining bytes of a chunk. The position of the buffer is
+	 * moved to its limit.
+	 * 
+	 * @param chunk
+	 *            the next bytes of the input
+	 * @throws MalformedJSONException
+	 *             if the input is not valid {@link JSON}.
+	 */
+	public void feed(final ByteBuffer chunk)
+	{
+		if (chunk.hasArray())
+		{
+			final int offset = chunk.arrayOffset() + chunk.position();
+
+			this.feed(chunk.array(), offset, chunk.remaining());
+
+			chunk.position(chunk.limit());
+		}
+		else
+		{
+			if (this.block == null)
+			{
+				this.block = new byte[JSONIn.DEFAULT_BUFFER_SIZE];
+			}
+
+			while (chunk.hasRemaining())
+			{
+				final int n = Math.min(chunk.remaining(), this.block.length);
+
+				chunk.get(this.block, 0, n);
+
+				this.feed(this.block, 0, n);
+			}
+		}
+	}
+
+	/**
+	 * Parse part of an array.
+	 * 
+	 * @param b
+	 *            the next bytes of the input
+	 * @param off
+	 *            the first byte to parse
+	 * @param len
+	 *            the number of bytes to parse
+	 * @throws MalformedJSONException
+	 *             if the input is not valid {@link JSON}.
+	 */
+	public void feed(final byte[] b, final int off, final int len)
+	{
+		if (off < 0 || len < 0 || off > b.length - len)
+		{
+			throw new IndexOutOfBoundsException("offset " + off + ", length "
+					+ len + ", size " + b.length);
+		}
+
+		if (this.closed)
+		{
+			throw new IllegalStateException("Closed");
+		}
+
+		final int end = off + len;
+
+		int i = off;
+
+		if (this.byteOrderMark >= 0)
+		{
+			i = this.byteOrderMark(b, i, end);
+		}
+
+		while (i < end)
+		{
+			if (this.state == STRING)
+			{
+				i = this.string(b, i, end);
+			}
+			else if (this.state == LITERAL)
+			{
+				i = this.literal(b, i, end);
+			}
+			else
+			{
+				final int c = b[i] & 0xFF;
+
+				if (!JSONSyntax.isWhitespace(c))
+				{
+					this.structure(c);
+				}
+
+				if (this.state != LITERAL)
+				{
+					++i;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the next complete top level value.
+	 * 
+	 * @return a {@link JSONObject} or {@link JSONArray}, or <code>null</code>
+	 *         if no more values are complete yet.
+	 */
+	@Override
+	public Object read()
+	{
+		return this.values.poll();
+	}
+
+	/**
+	 * Signal the end of the input. Values already complete can still be read.
+	 * 
+	 * @throws MalformedJSONException
+	 *             if the input ends inside a value.
+	 */
+	@Override
+	public void close()
+	{
+		this.closed = true;
+
+		if (this.state != DOCUMENT || this.byteOrderMark > 0)
+		{
+			throw new MalformedJSONException("Unexpected end of input");
+		}
+	}
+
+	/**
+	 * Skip a UTF-8 byte order mark at the start of the input, like
+	 * {@link UTF8JSONIn} does. The mark may be split between chunks.
+	 * 
+	 * @return the index after the last byte read.
+	 */
+	private int byteOrderMark(final byte[] b, int i, final int end)
+	{
+		for (; i < end; ++i)
+		{
+			final int c = b[i] & 0xFF;
+
+			if (this.byteOrderMark == 0 && c != 0xEF)
+			{
+				this.byteOrderMark = -1;
+
+				return i;
+			}
+
+			if (this.byteOrderMark == 1 && c != 0xBB
+					|| this.byteOrderMark == 2 && c != 0xBF)
+			{
+				throw new MalformedJSONException("Invalid UTF-8");
+			}
+
+			if (++this.byteOrderMark == 3)
+			{
+				this.byteOrderMark = -1;
+
+				return i + 1;
+			}
+		}
+
+		return i;
+	}
+
+	/**
+	 * Handle a character outside strings and literals.
+	 */
+	private void structure(final int c)
+	{
+		switch (this.state)
+		{
+			case DOCUMENT:
+				if (c == '{')
+				{
+					this.push(new JSONObject());
+				}
+				else if (c == '[')
+				{
+					this.push(new JSONArray<Object>());
+				}
+				else
+				{
+					throw new MalformedJSONException(
+							"Was expecting either { or [");
+				}
+				break;
+			case FIRST_ELEMENT:
+				if (c == ']')
+				{
+					this.pop();
+					break;
+				}
+				this.value(c);
+				break;
+			case VALUE:
+				this.value(c);
+				break;
+			case FIRST_FIELD:
+				if (c == '}')
+				{
+					this.pop();
+					break;
+				}
+				this.field(c);
+				break;
+			case FIELD:
+				this.field(c);
+				break;
+			case COLON:
+				if (c != ':')
+				{
+					throw new MalformedJSONException(
+							"Expecting ':' after field: "
+									+ this.names[this.depth - 1]);
+				}
+				this.state = VALUE;
+				break;
+			default:
+				this.afterValue(c);
+		}
+	}
+
+	private void value(final int c)
+	{
+		if (c == '{')
+		{
+			this.push(new JSONObject());
+		}
+		else if (c == '[')
+		{
+			this.push(new JSONArray<Object>());
+		}
+		else if (c == '"')
+		{
+			this.startString(false);
+		}
+		else if (c == ',' || c == ']' || c == '}')
+		{
+			throw new MalformedJSONException("Expecting a value");
+		}
+		else
+		{
+			this.literalLength = 0;
+			this.state = LITERAL;
+		}
+	}
+
+	private void field(final int c)
+	{
+		if (c != '"')
+		{
+			throw new MalformedJSONException(
+					"Expecting '\"' at start of field.");
+		}
+
+		this.startString(true);
+	}
+
+	private void afterValue(final int c)
+	{
+		if (this.containers[this.depth - 1] instanceof JSONObject)
+		{
+			if (c == ',')
+			{
+				this.state = FIELD;
+			}
+			else if (c == '}')
+			{
+				this.pop();
+			}
+			else
+			{
+				throw new MalformedJSONException(
+						"Expecting ',' or '}' after field, found '"
+								+ (char) c + "'");
+			}
+		}
+		else if (c == ',')
+		{
+			this.state = VALUE;
+		}
+		else if (c == ']')
+		{
+			this.pop();
+		}
+		else
+		{
+			throw new MalformedJSONException(
+					"Expecting ',' or ']' after array element, found '"
+							+ (char) c + "'");
+		}
+	}
+
+	private void push(final Object container)
+	{
+		if (this.depth == this.containers.length)
+		{
+			final Object[] containers = new Object[this.depth * 2];
+			final String[] names = new String[this.depth * 2];
+
+			System.arraycopy(this.containers, 0, containers, 0, this.depth);
+			System.arraycopy(this.names, 0, names, 0, this.depth);
+
+			this.containers = containers;
+			this.names = names;
+		}
+
+		this.containers[this.depth++] = container;
+
+		this.state = container instanceof JSONObject ? FIRST_FIELD
+				: FIRST_ELEMENT;
+	}
+
+	private void pop()
+	{
+		final Object container = this.containers[--this.depth];
+
+		this.containers[this.depth] = null;
+		this.names[this.depth] = null;
+
+		this.complete(container);
+	}
+
+	/**
+	 * Add a finished value to the container it is in, or to the values read.
+	 */
+	@SuppressWarnings("unchecked")
+	private void complete(final Object value)
+	{
+		if (this.depth == 0)
+		{
+			this.values.add(value);
+			this.state = DOCUMENT;
+			return;
+		}
+
+		final Object container = this.containers[this.depth - 1];
+
+		if (container instanceof JSONObject)
+		{
+			((JSONObject) container).add(new JSONField(
+					this.names[this.depth - 1], value));
+		}
+		else
+		{
+			((JSONArray<Object>) container).add(value);
+		}
+
+		this.state = AFTER_VALUE;
+	}
+
+	private void startString(final boolean name)
+	{
+		this.fieldName = name;
+		this.scratch.setLength(0);
+		this.state = STRING;
+	}
+
+	private void endString(final String value)
+	{
+		if (this.fieldName)
+		{
+			this.names[this.depth - 1] = value;
+			this.state = COLON;
+		}
+		else
+		{
+			this.complete(value);
+		}
+	}
+
+	/**
+	 * Read as much of a string as there is.
+	 * 
+	 * @return the index after the last byte read.
+	 */
+	private int string(final byte[] b, int i, final int end)
+	{
+		final StringBuilder value = this.scratch;
+
+		while (i < end)
+		{
+			if (this.escape < 0 && this.continuations == 0)
+			{
+				int j = i;
+
+				while (j < end && b[j] >= 0 && b[j] != '"' && b[j] != '\\')
+				{
+					++j;
+				}
+
+				if (j < end && b[j] == '"' && value.length() == 0)
+				{
+					/*
+					 * The whole string is ASCII, without escape sequences, and
+					 * in this chunk.
+					 */
+					this.endString(new String(b, i, j - i, ISO_8859_1));
+
+					return j + 1;
+				}
+
+				for (; i < j; ++i)
+				{
+					value.append((char) b[i]);
+				}
+
+				if (i == end)
+				{
+					return end;
+				}
+			}
+
+			final int c = b[i++] & 0xFF;
+
+			if (this.continuations > 0)
+			{
+				this.continuation(c);
+			}
+			else if (this.escape >= 0)
+			{
+				this.escape(c);
+			}
+			else if (c == '"')
+			{
+				this.endString(value.toString());
+
+				return i;
+			}
+			else if (c == '\\')
+			{
+				this.escape = 0;
+			}
+			else
+			{
+				this.lead(c);
+			}
+		}
+
+		return end;
+	}
+
+	/**
+	 * Start a multi-byte character.
+	 */
+	private void lead(final int c)
+	{
+		this.continuations = JSONSyntax.continuations(c);
+		this.code = JSONSyntax.leadBits(c);
+		this.min = JSONSyntax.secondMin(c);
+		this.max = JSONSyntax.secondMax(c);
+	}
+
+	private void continuation(final int c)
+	{
+		this.code = this.code << 6
+				| JSONSyntax.continuation(c, this.min, this.max);
+		this.min = JSONSyntax.CONTINUATION_MIN;
+		this.max = JSONSyntax.CONTINUATION_MAX;
+
+		if (--this.continuations == 0)
+		{
+			this.scratch.appendCodePoint(this.code);
+		}
+	}
+
+	/**
+	 * Handle the next character of an escape sequence.
+	 */
+	private void escape(final int c)
+	{
+		if (this.escape > 0)
+		{
+			this.code = this.code << 4 | JSONSyntax.hexDigit(c);
+
+			if (++this.escape > 4)
+			{
+				this.scratch.append((char) this.code);
+				this.escape = -1;
+			}
+
+			return;
+		}
+
+		final int decoded = JSONSyntax.escape(c);
+
+		if (decoded == JSONSyntax.UNICODE)
+		{
+			this.escape = 1;
+			this.code = 0;
+		}
+		else
+		{
+			this.scratch.append((char) decoded);
+			this.escape = -1;
+		}
+	}
+
+	/**
+	 * Read as much of a number, <code>true</code>, <code>false</code> or
+	 * <code>null</code> as there is, up to the next delimiter, which is left
+	 * for the container.
+	 * 
+	 * @return the index after the last byte read.
+	 */
+	private int literal(final byte[] b, int i, final int end)
+	{
+		for (; i < end; ++i)
+		{
+			final int c = b[i] & 0xFF;
+
+			if (JSONSyntax.isDelimiter(c))
+			{
+				this.complete(JSONSyntax.value(this.literal, 0,
+						this.literalLength));
+
+				return i;
+			}
+
+			if (this.literalLength == this.literal.length)
+			{
+				final char[] grown = new char[this.literalLength * 2];
+
+				System.arraycopy(this.literal, 0, grown, 0,
+						this.literalLength);
+
+				this.literal = grown;
+			}
+
+			this.literal[this.literalLength++] = (char) c;
+		}
+
+		return end;
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Writes the elements of a large array on a {@link ForkJoinPool}. The
+ * elements are split into chunks of {@link JSONOut#getParallelChunkSize()}
+ * elements, each chunk is written into its own buffer by a copy of the
+ * {@link JSONOut}, and the buffers are written to the output in order with a
+ * comma between them, so the result is the same as writing the elements one
+ * after the other. Only a few chunks per thread of the pool are written ahead
+ * of the output, so the whole array is never held in memory as text.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class ParallelWriter
+{
+	private final JSONOut out;
+
+	private final int length;
+
+	private final JSONOut.Elements elements;
+
+	/**
+	 * @param out
+	 *            the output to write the array to.
+	 * @param length
+	 *            the number of elements.
+	 * @param elements
+	 *            writes each element.
+	 */
+	ParallelWriter(final JSONOut out, final int length,
+			final JSONOut.Elements elements)
+	{
+		this.out = out;
+		this.length = length;
+		this.elements = elements;
+	}
+
+	/**
+	 * Write the array between brackets.
+	 * 
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	void write() throws IOException
+	{
+		final ForkJoinPool pool = this.out.getParallelPool();
+		final int size = this.out.getParallelChunkSize();
+		final int window = 2 * pool.getParallelism();
+		final int interval = this.out.getFlushInterval();
+
+		final ArrayDeque<ForkJoinTask<StringBuilder>> pending = new ArrayDeque<ForkJoinTask<StringBuilder>>(
+				window);
+
+		this.out.writeRaw('[');
+
+		try
+		{
+			int next = 0;
+
+			int written = 0;
+
+			int unflushed = 0;
+
+			boolean first = true;
+
+			while (next < this.length || !pending.isEmpty())
+			{
+				while (next < this.length && pending.size() < window)
+				{
+					final int to = (int) Math.min((long) next + size,
+							this.length);
+
+					pending.add(pool.submit(new Chunk(next, to)));
+
+					next = to;
+				}
+
+				final StringBuilder chunk = join(pending.poll());
+
+				if (!first)
+				{
+					this.out.writeRaw(',');
+				}
+
+				first = false;
+
+				this.out.writeRaw(chunk);
+
+				/*
+				 * Flush once at least the flush interval of elements has been
+				 * written, like JSONOut#writeIterator.
+				 */
+				final int end = (int) Math.min((long) written + size,
+						this.length);
+
+				unflushed += end - written;
+				written = end;
+
+				if (interval > 0 && unflushed >= interval)
+				{
+					this.out.flush();
+
+					unflushed = 0;
+				}
+			}
+		}
+		finally
+		{
+			for (final ForkJoinTask<StringBuilder> task : pending)
+			{
+				task.cancel(false);
+			}
+		}
+
+		this.out.writeRaw(']');
+	}
+
+	private static StringBuilder join(final ForkJoinTask<StringBuilder> task)
+			throws IOException
+	{
+		try
+		{
+			return task.join();
+		}
+		catch (final UncheckedIOException e)
+		{
+			throw e.getCause();
+		}
+	}
+
+	private final class Chunk extends RecursiveTask<StringBuilder>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+
+		private final int to;
+
+		Chunk(final int from, final int to)
+		{
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected StringBuilder compute()
+		{
+			final StringBuilder result = new StringBuilder(
+					8 * (this.to - this.from));
+
+			try
+			{
+				ParallelWriter.this.out.fork(new AppendableWriter(result))
+						.writeElements(ParallelWriter.this.elements,
+								this.from, this.to);
+			}
+			catch (final IOException e)
+			{
+				throw new UncheckedIOException(e);
+			}
+
+			return result;
+		}
+	}
+}
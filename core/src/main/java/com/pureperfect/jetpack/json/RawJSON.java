@@ -0,0 +1,172 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import com.pureperfect.jetpack.TypeConverter;
+
+/**
+ * {@link JSON} that is already serialized, such as a cached document or a
+ * value from a database, and is written as it is instead of as a string. It
+ * can be a value in a collection, map, {@link JSONData} tree or mapped field.
+ * 
+ * <pre>
+ * final JSONObject response = new JSONObject();
+ * 
+ * response.add(new JSONField(&quot;user&quot;, new RawJSON(cache.get(id))));
+ * </pre>
+ * 
+ * <p>
+ * The content is not checked, so it must be a complete, valid {@link JSON}
+ * value, or the output will not be. Content given as UTF-8 bytes is copied to
+ * the output without being decoded when {@link JSONOut} writes UTF-8 to a
+ * stream or channel. The bytes are not copied when the {@link RawJSON} is
+ * created, so they must not be changed while it is in use. Line breaks in the
+ * content are written as spaces by {@link NDJSONOut}, so that each record
+ * stays on one line.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public final class RawJSON implements JSONData
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final CharSequence text;
+
+	private final byte[] utf8;
+
+	private final int offset;
+
+	private final int length;
+
+	/**
+	 * Wrap serialized {@link JSON} text.
+	 * 
+	 * @param json
+	 *            the text.
+	 */
+	public RawJSON(final CharSequence json)
+	{
+		if (json == null)
+		{
+			throw new IllegalArgumentException("null");
+		}
+
+		this.text = json;
+		this.utf8 = null;
+		this.offset = 0;
+		this.length = 0;
+	}
+
+	/**
+	 * Wrap serialized {@link JSON} encoded as UTF-8.
+	 * 
+	 * @param utf8
+	 *            the bytes.
+	 */
+	public RawJSON(final byte[] utf8)
+	{
+		this(utf8, 0, utf8.length);
+	}
+
+	/**
+	 * Wrap part of an array of serialized {@link JSON} encoded as UTF-8.
+	 * 
+	 * @param utf8
+	 *            the bytes.
+	 * @param offset
+	 *            the first byte of the {@link JSON}.
+	 * @param length
+	 *            the number of bytes.
+	 */
+	public RawJSON(final byte[] utf8, final int offset, final int length)
+	{
+		if (offset < 0 || length < 0 || offset > utf8.length - length)
+		{
+			throw new IndexOutOfBoundsException("offset " + offset
+					+ ", length " + length + ", size " + utf8.length);
+		}
+
+		this.text = null;
+		this.utf8 = utf8;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Get the {@link JSON} text, decoding it if it was given as bytes.
+	 * 
+	 * @return the text.
+	 */
+	@Override
+	public CharSequence toText()
+	{
+		return this.text != null ? this.text : new String(this.utf8,
+				this.offset, this.length, UTF_8);
+	}
+
+	/**
+	 * Same as {@link #toText()}. The text is already converted.
+	 * 
+	 * @param converter
+	 *            not used.
+	 * @return the text.
+	 */
+	@Override
+	public CharSequence toText(final TypeConverter converter)
+	{
+		return this.toText();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final Appendable out) throws IOException
+	{
+		out.append(this.toText());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void writeTo(final JSONOut out) throws IOException
+	{
+		if (this.text != null)
+		{
+			out.writeRaw(this.text);
+		}
+		else
+		{
+			out.writeRaw(this.utf8, this.offset, this.length);
+		}
+	}
+
+	/**
+	 * Same as {@link #toText()}, except returns a string.
+	 */
+	@Override
+	public String toString()
+	{
+		return this.toText().toString();
+	}
+}
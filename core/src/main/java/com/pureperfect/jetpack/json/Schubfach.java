@@ -0,0 +1,519 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.math.BigInteger;
+
+/**
+ * Writes doubles and floats with the fewest digits that still read back as
+ * the same value, using Raffaello Giulietti's Schubfach algorithm
+ * ("The Schubfach way to render doubles", 2020). The digits are written
+ * straight into the caller's buffer, so nothing is allocated.
+ * 
+ * <p>
+ * Values with a decimal exponent from -7 to 20 are written as plain decimals,
+ * e.g. <code>10000000000.0</code> rather than <code>1.0E10</code>, and other
+ * values in scientific notation, e.g. <code>1.0E21</code>. Integral values
+ * keep a <code>.0</code> so they are still read as floating point numbers. NaN
+ * and the infinities are written the same way as by
+ * {@link Double#toString(double)}, although they are not valid {@link JSON}.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class Schubfach
+{
+	/*
+	 * Double: precision, exponent width, minimum exponent, hidden bit and the
+	 * largest subnormal significand that needs an extra digit.
+	 */
+	private static final int D_P = 53;
+
+	private static final int D_BQ_MASK = (1 << 11) - 1;
+
+	private static final long D_T_MASK = (1L << D_P - 1) - 1;
+
+	private static final int D_Q_MIN = -1074;
+
+	private static final long D_C_MIN = 1L << D_P - 1;
+
+	private static final long D_C_TINY = 3;
+
+	/*
+	 * The same for float.
+	 */
+	private static final int F_P = 24;
+
+	private static final int F_BQ_MASK = (1 << 8) - 1;
+
+	private static final int F_T_MASK = (1 << F_P - 1) - 1;
+
+	private static final int F_Q_MIN = -149;
+
+	private static final int F_C_MIN = 1 << F_P - 1;
+
+	private static final int F_C_TINY = 8;
+
+	private static final long MASK_63 = (1L << 63) - 1;
+
+	private static final long MASK_32 = (1L << 32) - 1;
+
+	private static final int K_MIN = -324;
+
+	private static final int K_MAX = 292;
+
+	/*
+	 * For each k from K_MIN to K_MAX, the 126 bit value floor(10^-k 2^-r) + 1,
+	 * where r = flog2pow10(-k) - 125, as two 63 bit halves.
+	 */
+	private static final long[] G = new long[K_MAX - K_MIN + 1 << 1];
+
+	static
+	{
+		for (int k = K_MIN; k <= K_MAX; ++k)
+		{
+			final int r = flog2pow10(-k) - 125;
+
+			BigInteger num = BigInteger.TEN.pow(Math.max(-k, 0));
+			BigInteger den = BigInteger.TEN.pow(Math.max(k, 0));
+
+			if (r < 0)
+			{
+				num = num.shiftLeft(-r);
+			}
+			else
+			{
+				den = den.shiftLeft(r);
+			}
+
+			final BigInteger g = num.divide(den).add(BigInteger.ONE);
+
+			G[k - K_MIN << 1] = g.shiftRight(63).longValue();
+			G[k - K_MIN << 1 | 1] = g.longValue() & MASK_63;
+		}
+	}
+
+	private Schubfach()
+	{
+		// hide me
+	}
+
+	/**
+	 * Write a double to a buffer.
+	 * 
+	 * @param v
+	 *            the value to write
+	 * @param buf
+	 *            the buffer, with at least 26 characters free after the offset
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	static int write(final double v, final char[] buf, int offset)
+	{
+		final long bits = Double.doubleToRawLongBits(v);
+		final long t = bits & D_T_MASK;
+		final int bq = (int) (bits >>> D_P - 1) & D_BQ_MASK;
+
+		if (bq == D_BQ_MASK)
+		{
+			return special(t != 0, bits < 0, buf, offset);
+		}
+
+		if (bits < 0)
+		{
+			buf[offset++] = '-';
+		}
+
+		if (bq != 0)
+		{
+			final int mq = -D_Q_MIN + 1 - bq;
+			final long c = D_C_MIN | t;
+
+			/*
+			 * Integers below 2^53 are exact.
+			 */
+			if (0 < mq & mq < D_P)
+			{
+				final long f = c >> mq;
+
+				if (f << mq == c)
+				{
+					return format(f, 0, buf, offset);
+				}
+			}
+
+			return toDecimal(-mq, c, 0, buf, offset);
+		}
+
+		if (t != 0)
+		{
+			return t < D_C_TINY ? toDecimal(D_Q_MIN, 10 * t, -1, buf, offset)
+					: toDecimal(D_Q_MIN, t, 0, buf, offset);
+		}
+
+		return format(0, 0, buf, offset);
+	}
+
+	/**
+	 * Write a float to a buffer.
+	 * 
+	 * @param v
+	 *            the value to write
+	 * @param buf
+	 *            the buffer, with at least 26 characters free after the offset
+	 * @param offset
+	 *            the index of the first character to write
+	 * @return the index after the last character written
+	 */
+	static int write(final float v, final char[] buf, int offset)
+	{
+		final int bits = Float.floatToRawIntBits(v);
+		final int t = bits & F_T_MASK;
+		final int bq = bits >>> F_P - 1 & F_BQ_MASK;
+
+		if (bq == F_BQ_MASK)
+		{
+			return special(t != 0, bits < 0, buf, offset);
+		}
+
+		if (bits < 0)
+		{
+			buf[offset++] = '-';
+		}
+
+		if (bq != 0)
+		{
+			final int mq = -F_Q_MIN + 1 - bq;
+			final int c = F_C_MIN | t;
+
+			if (0 < mq & mq < F_P)
+			{
+				final int f = c >> mq;
+
+				if (f << mq == c)
+				{
+					return format(f, 0, buf, offset);
+				}
+			}
+
+			return toDecimal(-mq, c, 0, buf, offset);
+		}
+
+		if (t != 0)
+		{
+			return t < F_C_TINY ? toDecimal(F_Q_MIN, 10 * t, -1, buf, offset)
+					: toDecimal(F_Q_MIN, t, 0, buf, offset);
+		}
+
+		return format(0, 0, buf, offset);
+	}
+
+	/**
+	 * Find the shortest decimal for c 2^q, as in section 9 of the paper.
+	 */
+	private static int toDecimal(final int q, final long c, final int dk,
+			final char[] buf, final int offset)
+	{
+		final int out = (int) c & 0x1;
+
+		final long cb = c << 2;
+		final long cbr = cb + 2;
+		final long cbl;
+		final int k;
+
+		if (c != D_C_MIN | q == D_Q_MIN)
+		{
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		}
+		else
+		{
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+
+		final int h = q + flog2pow10(-k) + 2;
+
+		final long g1 = G[k - K_MIN << 1];
+		final long g0 = G[k - K_MIN << 1 | 1];
+
+		final long vb = rop(g1, g0, cb << h);
+		final long vbl = rop(g1, g0, cbl << h);
+		final long vbr = rop(g1, g0, cbr << h);
+
+		final long s = vb >> 2;
+
+		if (s >= 100)
+		{
+			/*
+			 * Try one digit less first.
+			 */
+			final long sp10 = 10 * Math.multiplyHigh(s,
+					115292150460684698L << 4);
+			final long tp10 = sp10 + 10;
+
+			final boolean upin = vbl + out <= sp10 << 2;
+			final boolean wpin = (tp10 << 2) + out <= vbr;
+
+			if (upin != wpin)
+			{
+				return format(upin ? sp10 : tp10, k, buf, offset);
+			}
+		}
+
+		final long t = s + 1;
+
+		final boolean uin = vbl + out <= s << 2;
+		final boolean win = (t << 2) + out <= vbr;
+
+		if (uin != win)
+		{
+			return format(uin ? s : t, k + dk, buf, offset);
+		}
+
+		/*
+		 * Both are in the rounding interval, so pick the closest.
+		 */
+		final long cmp = vb - (s + t << 1);
+
+		return format(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk,
+				buf, offset);
+	}
+
+	/**
+	 * The float version of {@link #toDecimal(int, long, int, char[], int)}.
+	 */
+	private static int toDecimal(final int q, final int c, final int dk,
+			final char[] buf, final int offset)
+	{
+		final int out = c & 0x1;
+
+		final long cb = (long) c << 2;
+		final long cbr = cb + 2;
+		final long cbl;
+		final int k;
+
+		if (c != F_C_MIN | q == F_Q_MIN)
+		{
+			cbl = cb - 2;
+			k = flog10pow2(q);
+		}
+		else
+		{
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2(q);
+		}
+
+		final int h = q + flog2pow10(-k) + 33;
+
+		final long g = G[k - K_MIN << 1] + 1;
+
+		final int vb = rop(g, cb << h);
+		final int vbl = rop(g, cbl << h);
+		final int vbr = rop(g, cbr << h);
+
+		final int s = vb >> 2;
+
+		if (s >= 100)
+		{
+			final int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+			final int tp10 = sp10 + 10;
+
+			final boolean upin = vbl + out <= sp10 << 2;
+			final boolean wpin = (tp10 << 2) + out <= vbr;
+
+			if (upin != wpin)
+			{
+				return format(upin ? sp10 : tp10, k, buf, offset);
+			}
+		}
+
+		final int t = s + 1;
+
+		final boolean uin = vbl + out <= s << 2;
+		final boolean win = (t << 2) + out <= vbr;
+
+		if (uin != win)
+		{
+			return format(uin ? s : t, k + dk, buf, offset);
+		}
+
+		final int cmp = vb - (s + t << 1);
+
+		return format(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk,
+				buf, offset);
+	}
+
+	/**
+	 * Round to odd the product of g and cp, for doubles.
+	 */
+	private static long rop(final long g1, final long g0, final long cp)
+	{
+		final long x1 = Math.multiplyHigh(g0, cp);
+		final long y0 = g1 * cp;
+		final long y1 = Math.multiplyHigh(g1, cp);
+		final long z = (y0 >>> 1) + x1;
+		final long vbp = y1 + (z >>> 63);
+
+		return vbp | (z & MASK_63) + MASK_63 >>> 63;
+	}
+
+	/**
+	 * Round to odd the product of g and cp, for floats.
+	 */
+	private static int rop(final long g, final long cp)
+	{
+		final long x1 = Math.multiplyHigh(g, cp);
+		final long vbp = x1 >>> 31;
+
+		return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+	}
+
+	private static int flog10pow2(final int e)
+	{
+		return (int) (e * 661971961083L >> 41);
+	}
+
+	private static int flog10threeQuartersPow2(final int e)
+	{
+		return (int) (e * 661971961083L + -274743187321L >> 41);
+	}
+
+	private static int flog2pow10(final int e)
+	{
+		return (int) (e * 913124641741L >> 38);
+	}
+
+	/**
+	 * Write f 10^e, f being positive or zero.
+	 */
+	private static int format(long f, int e, final char[] buf, final int offset)
+	{
+		if (f == 0)
+		{
+			buf[offset] = '0';
+			buf[offset + 1] = '.';
+			buf[offset + 2] = '0';
+
+			return offset + 3;
+		}
+
+		while (f % 10 == 0)
+		{
+			f /= 10;
+			++e;
+		}
+
+		/*
+		 * Write the digits, then move them around the decimal point.
+		 */
+		final int n = JSONTypeConverter.defaultInstance().write(f, buf,
+				offset)
+				- offset;
+
+		final int exp = n + e - 1;
+
+		if (exp >= 0 && exp < 21)
+		{
+			if (n <= exp + 1)
+			{
+				/*
+				 * An integer, e.g. 1200.0
+				 */
+				int end = offset + n;
+
+				for (int i = n; i <= exp; ++i)
+				{
+					buf[end++] = '0';
+				}
+
+				buf[end++] = '.';
+				buf[end++] = '0';
+
+				return end;
+			}
+
+			/*
+			 * e.g. 12.34
+			 */
+			final int point = offset + exp + 1;
+
+			System.arraycopy(buf, point, buf, point + 1, n - exp - 1);
+
+			buf[point] = '.';
+
+			return offset + n + 1;
+		}
+
+		if (exp < 0 && exp >= -7)
+		{
+			/*
+			 * e.g. 0.001234
+			 */
+			final int zeros = -exp + 1;
+
+			System.arraycopy(buf, offset, buf, offset + zeros, n);
+
+			buf[offset] = '0';
+			buf[offset + 1] = '.';
+
+			for (int i = 2; i < zeros; ++i)
+			{
+				buf[offset + i] = '0';
+			}
+
+			return offset + zeros + n;
+		}
+
+		/*
+		 * Scientific, e.g. 1.234E-8
+		 */
+		int end;
+
+		if (n == 1)
+		{
+			buf[offset + 1] = '.';
+			buf[offset + 2] = '0';
+
+			end = offset + 3;
+		}
+		else
+		{
+			System.arraycopy(buf, offset + 1, buf, offset + 2, n - 1);
+
+			buf[offset + 1] = '.';
+
+			end = offset + n + 1;
+		}
+
+		buf[end++] = 'E';
+
+		return JSONTypeConverter.defaultInstance().write(exp, buf, end);
+	}
+
+	private static int special(final boolean nan, final boolean negative,
+			final char[] buf, final int offset)
+	{
+		final String s = nan ? "NaN" : negative ? "-Infinity" : "Infinity";
+
+		s.getChars(0, s.length(), buf, offset);
+
+		return offset + s.length();
+	}
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a {@link JSONSerializer} class for each {@link JSON} mapped type,
+ * defined as a hidden class with
+ * {@link MethodHandles.Lookup#defineHiddenClass(byte[], boolean, MethodHandles.Lookup.ClassOption...)}
+ * . The generated code writes the quoted field names as string constants and
+ * calls the getters directly, so no {@link com.pureperfect.jetpack.Field
+ * Fields} or iterators are created while writing.
+ * 
+ * <p>
+ * The fields are written sorted by name, in the same order as the caching
+ * field readers and the compiled serializers write them. Serializers can only
+ * be generated for public classes with public getters that are visible from
+ * the class loader of this class. For any other class, or on a JVM without
+ * hidden classes, {@link #forClass(Class)} returns <code>null</code> and the
+ * caller falls back to reflection.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class SerializerGenerator
+{
+	private static final String OBJECT = "java/lang/Object";
+
+	private static final String OUT = "com/pureperfect/jetpack/json/JSONOut";
+
+	private static final String NAME = "com/pureperfect/jetpack/json/GeneratedSerializer";
+
+	private static final boolean HIDDEN_CLASSES = hasHiddenClasses();
+
+	private static final ClassValue<JSONSerializer<Object>> serializers = new ClassValue<JSONSerializer<Object>>()
+	{
+		@Override
+		protected JSONSerializer<Object> computeValue(final Class<?> type)
+		{
+			if (!HIDDEN_CLASSES)
+			{
+				return null;
+			}
+
+			try
+			{
+				return generate(type);
+			}
+			catch (final ReflectiveOperationException e)
+			{
+				/*
+				 * The type or a getter cannot be accessed from here. Errors
+				 * in the generated class, e.g. a VerifyError, are bugs and
+				 * are not caught.
+				 */
+				return null;
+			}
+			catch (final IOException e)
+			{
+				/*
+				 * The class file is written to memory.
+				 */
+				throw new UncheckedIOException(e);
+			}
+		}
+	};
+
+	private SerializerGenerator()
+	{
+		// hide me
+	}
+
+	/**
+	 * Get the generated serializer for a type.
+	 * 
+	 * @param type
+	 *            the type to write
+	 * @return the serializer, or <code>null</code> if none could be generated.
+	 */
+	static JSONSerializer<Object> forClass(final Class<?> type)
+	{
+		return serializers.get(type);
+	}
+
+	private static boolean hasHiddenClasses()
+	{
+		try
+		{
+			Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+
+			return true;
+		}
+		catch (final ClassNotFoundException e)
+		{
+			return false;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static JSONSerializer<Object> generate(final Class<?> type)
+			throws ReflectiveOperationException, IOException
+	{
+		if (!Modifier.isPublic(type.getModifiers()) || type.isArray()
+				|| type.isPrimitive() || !isVisible(type))
+		{
+			return null;
+		}
+
+		final List<Method> getters = new ArrayList<Method>();
+
+		for (final Method m : type.getDeclaredMethods())
+		{
+			if (m.getDeclaredAnnotation(JSON.class) == null)
+			{
+				continue;
+			}
+
+			final int mod = m.getModifiers();
+
+			if (!Modifier.isPublic(mod) || Modifier.isStatic(mod)
+					|| m.getParameterTypes().length != 0
+					|| m.getReturnType() == void.class)
+			{
+				return null;
+			}
+
+			getters.add(m);
+		}
+
+		if (getters.isEmpty())
+		{
+			return null;
+		}
+
+		getters.sort(Comparator.comparing(ClassFile::fieldName));
+
+		final MethodHandles.Lookup lookup = MethodHandles.lookup()
+				.defineHiddenClass(new ClassFile(type, getters).toBytes(),
+						true);
+
+		return (JSONSerializer<Object>) lookup.lookupClass().getConstructor()
+				.newInstance();
+	}
+
+	/**
+	 * The generated code refers to the type by name, so it has to resolve from
+	 * our class loader.
+	 */
+	private static boolean isVisible(final Class<?> type)
+	{
+		try
+		{
+			return Class.forName(type.getName(), false,
+					SerializerGenerator.class.getClassLoader()) == type;
+		}
+		catch (final ClassNotFoundException e)
+		{
+			return false;
+		}
+	}
+
+	private static String internalName(final Class<?> type)
+	{
+		return type.getName().replace('.', '/');
+	}
+
+	private static String descriptor(final Class<?> type)
+	{
+		if (type.isPrimitive())
+		{
+			if (type == boolean.class)
+			{
+				return "Z";
+			}
+			else if (type == byte.class)
+			{
+				return "B";
+			}
+			else if (type == char.class)
+			{
+				return "C";
+			}
+			else if (type == short.class)
+			{
+				return "S";
+			}
+			else if (type == int.class)
+			{
+				return "I";
+			}
+			else if (type == long.class)
+			{
+				return "J";
+			}
+			else if (type == float.class)
+			{
+				return "F";
+			}
+			else
+			{
+				return "D";
+			}
+		}
+		else if (type.isArray())
+		{
+			return internalName(type);
+		}
+		else
+		{
+			return "L" + internalName(type) + ";";
+		}
+	}
+
+	/**
+	 * A minimal class file with a constructor and
+	 * <code>write(Object, JSONOut)</code>. The code has no branches, so no
+	 * stack map frames are needed.
+	 */
+	private static final class ClassFile
+	{
+		private static final int ACC_PUBLIC = 0x0001;
+
+		private static final int ACC_FINAL = 0x0010;
+
+		private static final int ACC_SUPER = 0x0020;
+
+		private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+
+		private final DataOutputStream pool = new DataOutputStream(
+				this.poolBytes);
+
+		private final Map<String, Integer> entries = new HashMap<String, Integer>();
+
+		private int poolCount = 1;
+
+		private final Class<?> type;
+
+		private final List<Method> getters;
+
+		ClassFile(final Class<?> type, final List<Method> getters)
+		{
+			this.type = type;
+			this.getters = getters;
+		}
+
+		byte[] toBytes() throws IOException
+		{
+			final int thisClass = this.classRef(NAME);
+			final int superClass = this.classRef(OBJECT);
+			final int iface = this.classRef(internalName(JSONSerializer.class));
+			final int code = this.utf8("Code");
+
+			final byte[] init = this.init();
+			final byte[] write = this.write();
+
+			final int initName = this.utf8("<init>");
+			final int initDesc = this.utf8("()V");
+			final int writeName = this.utf8("write");
+			final int writeDesc = this.utf8("(Ljava/lang/Object;L" + OUT
+					+ ";)V");
+
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			final DataOutputStream out = new DataOutputStream(bytes);
+
+			out.writeInt(0xCAFEBABE);
+			out.writeShort(0);
+			out.writeShort(52);
+			out.writeShort(this.poolCount);
+			this.pool.flush();
+			this.poolBytes.writeTo(out);
+			out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+			out.writeShort(thisClass);
+			out.writeShort(superClass);
+			out.writeShort(1);
+			out.writeShort(iface);
+			out.writeShort(0);
+			out.writeShort(2);
+			method(out, initName, initDesc, code, 1, 1, init);
+			method(out, writeName, writeDesc, code, 3, 4, write);
+			out.writeShort(0);
+			out.flush();
+
+			return bytes.toByteArray();
+		}
+
+		private static void method(final DataOutputStream out,
+				final int name, final int desc, final int code,
+				final int maxStack, final int maxLocals, final byte[] body)
+				throws IOException
+		{
+			out.writeShort(ACC_PUBLIC);
+			out.writeShort(name);
+			out.writeShort(desc);
+			out.writeShort(1);
+			out.writeShort(code);
+			out.writeInt(12 + body.length);
+			out.writeShort(maxStack);
+			out.writeShort(maxLocals);
+			out.writeInt(body.length);
+			out.write(body);
+			out.writeShort(0);
+			out.writeShort(0);
+		}
+
+		private byte[] init() throws IOException
+		{
+			final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+			code.write(0x2A); // aload_0
+			op(code, 0xB7, this.methodRef(OBJECT, "<init>", "()V"));
+			code.write(0xB1); // return
+
+			return code.toByteArray();
+		}
+
+		private byte[] write() throws IOException
+		{
+			final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+			final String owner = internalName(this.type);
+
+			final int writeRaw = this.methodRef(OUT, "writeRaw",
+					"(Ljava/lang/CharSequence;)V");
+			final int writeValue = this.methodRef(OUT, "write",
+					"(Ljava/lang/Object;)V");
+
+			code.write(0x2B); // aload_1
+			op(code, 0xC0, this.classRef(owner)); // checkcast
+			code.write(0x4E); // astore_3
+
+			char separator = '{';
+
+			for (final Method m : this.getters)
+			{
+				final Class<?> returnType = m.getReturnType();
+
+				code.write(0x2C); // aload_2
+				op(code, 0x13, this.string(separator + "\""
+						+ fieldName(m) + "\":")); // ldc_w
+				op(code, 0xB6, writeRaw); // invokevirtual
+
+				code.write(0x2C); // aload_2
+				code.write(0x2D); // aload_3
+				op(code, 0xB6, this.methodRef(owner, m.getName(), "()"
+						+ descriptor(returnType))); // invokevirtual
+
+				/*
+				 * JSONOut has an overload for each primitive type, so only
+				 * references go through write(Object).
+				 */
+				op(code, 0xB6, returnType.isPrimitive() ? this.methodRef(OUT,
+						"write", "(" + descriptor(returnType) + ")V")
+						: writeValue); // invokevirtual
+
+				separator = ',';
+			}
+
+			code.write(0x2C); // aload_2
+			op(code, 0x13, this.string("}")); // ldc_w
+			op(code, 0xB6, writeRaw); // invokevirtual
+			code.write(0xB1); // return
+
+			return code.toByteArray();
+		}
+
+		private static void op(final ByteArrayOutputStream code,
+				final int opcode, final int index)
+		{
+			code.write(opcode);
+			code.write(index >> 8);
+			code.write(index);
+		}
+
+		private static String fieldName(final Method m)
+		{
+			final String methodName = m.getName();
+
+			return Character.toLowerCase(methodName.charAt(3))
+					+ methodName.substring(4);
+		}
+
+		private int utf8(final String s) throws IOException
+		{
+			final String key = "U" + s;
+
+			Integer index = this.entries.get(key);
+
+			if (index == null)
+			{
+				this.pool.writeByte(1);
+				this.pool.writeUTF(s);
+				index = this.add(key);
+			}
+
+			return index;
+		}
+
+		private int classRef(final String internalName) throws IOException
+		{
+			return this.ref("C", 7, this.utf8(internalName), -1);
+		}
+
+		private int string(final String s) throws IOException
+		{
+			return this.ref("S", 8, this.utf8(s), -1);
+		}
+
+		private int methodRef(final String owner, final String name,
+				final String desc) throws IOException
+		{
+			final int nameAndType = this.ref("N", 12, this.utf8(name),
+					this.utf8(desc));
+
+			return this.ref("M", 10, this.classRef(owner), nameAndType);
+		}
+
+		private int ref(final String kind, final int tag, final int first,
+				final int second) throws IOException
+		{
+			final String key = kind + first + ":" + second;
+
+			Integer index = this.entries.get(key);
+
+			if (index == null)
+			{
+				this.pool.writeByte(tag);
+				this.pool.writeShort(first);
+
+				if (second >= 0)
+				{
+					this.pool.writeShort(second);
+				}
+
+				index = this.add(key);
+			}
+
+			return index;
+		}
+
+		private Integer add(final String key)
+		{
+			final Integer index = this.poolCount++;
+
+			this.entries.put(key, index);
+
+			return index;
+		}
+	}
+}
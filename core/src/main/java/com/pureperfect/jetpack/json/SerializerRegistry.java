@@ -0,0 +1,114 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The serializers registered with a {@link JSONOut}, and the serializer found
+ * for each class written so far.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class SerializerRegistry
+{
+	/*
+	 * Cached for classes without a registered serializer, since a concurrent
+	 * map cannot hold null.
+	 */
+	private static final Object NONE = new Object();
+
+	private final Map<Class<?>, JSONSerializer<Object>> registered = new LinkedHashMap<Class<?>, JSONSerializer<Object>>();
+
+	/*
+	 * The serializer or NONE for each class. Concurrent, because parallel
+	 * writes look up serializers from several threads.
+	 */
+	private final Map<Class<?>, Object> resolved = new ConcurrentHashMap<Class<?>, Object>();
+
+	SerializerRegistry()
+	{
+		// empty
+	}
+
+	/**
+	 * Copy the registrations of another registry.
+	 */
+	SerializerRegistry(final SerializerRegistry other)
+	{
+		this.registered.putAll(other.registered);
+	}
+
+	@SuppressWarnings("unchecked")
+	void register(final Class<?> type, final JSONSerializer<?> serializer)
+	{
+		this.registered.put(type, (JSONSerializer<Object>) serializer);
+		this.resolved.clear();
+	}
+
+	/**
+	 * Get the serializer for a class.
+	 * 
+	 * @param type
+	 *            the class to write
+	 * @return the serializer, or <code>null</code> if none is registered for
+	 *         the class or its supertypes.
+	 */
+	@SuppressWarnings("unchecked")
+	JSONSerializer<Object> get(final Class<?> type)
+	{
+		Object result = this.resolved.get(type);
+
+		if (result == null)
+		{
+			final JSONSerializer<Object> found = this.find(type);
+
+			result = found == null ? NONE : found;
+
+			this.resolved.put(type, result);
+		}
+
+		return result == NONE ? null : (JSONSerializer<Object>) result;
+	}
+
+	private JSONSerializer<Object> find(final Class<?> type)
+	{
+		for (Class<?> c = type; c != null; c = c.getSuperclass())
+		{
+			final JSONSerializer<Object> result = this.registered.get(c);
+
+			if (result != null)
+			{
+				return result;
+			}
+		}
+
+		for (final Map.Entry<Class<?>, JSONSerializer<Object>> e : this.registered
+				.entrySet())
+		{
+			if (e.getKey().isAssignableFrom(type))
+			{
+				return e.getValue();
+			}
+		}
+
+		return null;
+	}
+}
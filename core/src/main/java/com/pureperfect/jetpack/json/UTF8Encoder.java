@@ -0,0 +1,302 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Encodes characters as UTF-8 directly into a byte array, which is passed on
+ * by {@link #drain(byte[], int, int)} when it is full or flushed. Runs of
+ * ASCII characters are copied without any further checks. Unpaired surrogates
+ * are written as '?', like an {@link java.io.OutputStreamWriter} does.
+ * 
+ * <p>
+ * Unlike an {@link java.io.OutputStreamWriter} this class is not synchronized,
+ * and must only be used by one thread at a time.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+abstract class UTF8Encoder extends Writer
+{
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	final byte[] buf;
+
+	private int count;
+
+	/*
+	 * A high surrogate waiting for the low surrogate from the next write, or 0.
+	 */
+	private char high;
+
+	UTF8Encoder(final byte[] buf)
+	{
+		this.buf = buf;
+	}
+
+	/**
+	 * Pass on encoded bytes.
+	 * 
+	 * @param b
+	 *            the bytes, which is the buffer of this class when it is
+	 *            flushed
+	 * @param off
+	 *            the first byte
+	 * @param len
+	 *            the number of bytes
+	 */
+	abstract void drain(byte[] b, int off, int len) throws IOException;
+
+	/**
+	 * Discard anything not yet passed on.
+	 */
+	void discard()
+	{
+		this.count = 0;
+		this.high = 0;
+	}
+
+	@Override
+	public void write(final int c) throws IOException
+	{
+		this.encode((char) c);
+	}
+
+	@Override
+	public void write(final char[] cbuf, int off, final int len)
+			throws IOException
+	{
+		final int end = off + len;
+
+		while (off < end)
+		{
+			if (this.high == 0)
+			{
+				final byte[] b = this.buf;
+
+				final int limit = Math.min(end, off + b.length - this.count);
+
+				int n = this.count;
+
+				while (off < limit && cbuf[off] < 0x80)
+				{
+					b[n++] = (byte) cbuf[off++];
+				}
+
+				this.count = n;
+
+				if (off == end)
+				{
+					break;
+				}
+
+				if (n == b.length)
+				{
+					this.flushBuffer();
+					continue;
+				}
+			}
+
+			this.encode(cbuf[off++]);
+		}
+	}
+
+	@Override
+	public void write(final String str, final int off, final int len)
+			throws IOException
+	{
+		this.encode(str, off, off + len);
+	}
+
+	@Override
+	public Writer append(final CharSequence csq) throws IOException
+	{
+		final CharSequence s = csq == null ? "null" : csq;
+
+		this.encode(s, 0, s.length());
+
+		return this;
+	}
+
+	@Override
+	public Writer append(final CharSequence csq, final int start,
+			final int end) throws IOException
+	{
+		this.encode(csq == null ? "null" : csq, start, end);
+
+		return this;
+	}
+
+	@Override
+	public Writer append(final char c) throws IOException
+	{
+		this.encode(c);
+
+		return this;
+	}
+
+	private void encode(final CharSequence s, int off, final int end)
+			throws IOException
+	{
+		while (off < end)
+		{
+			if (this.high == 0)
+			{
+				final byte[] b = this.buf;
+
+				final int limit = Math.min(end, off + b.length - this.count);
+
+				int n = this.count;
+
+				char c;
+
+				while (off < limit && (c = s.charAt(off)) < 0x80)
+				{
+					b[n++] = (byte) c;
+					++off;
+				}
+
+				this.count = n;
+
+				if (off == end)
+				{
+					break;
+				}
+
+				if (n == b.length)
+				{
+					this.flushBuffer();
+					continue;
+				}
+			}
+
+			this.encode(s.charAt(off++));
+		}
+	}
+
+	private void encode(final char c) throws IOException
+	{
+		if (this.count + 4 > this.buf.length)
+		{
+			this.flushBuffer();
+		}
+
+		final byte[] b = this.buf;
+
+		if (this.high != 0)
+		{
+			final char h = this.high;
+
+			this.high = 0;
+
+			if (Character.isLowSurrogate(c))
+			{
+				final int cp = Character.toCodePoint(h, c);
+
+				b[this.count++] = (byte) (0xF0 | cp >> 18);
+				b[this.count++] = (byte) (0x80 | cp >> 12 & 0x3F);
+				b[this.count++] = (byte) (0x80 | cp >> 6 & 0x3F);
+				b[this.count++] = (byte) (0x80 | cp & 0x3F);
+
+				return;
+			}
+
+			/*
+			 * Unpaired. At most three more bytes are needed for c.
+			 */
+			b[this.count++] = '?';
+		}
+
+		if (c < 0x80)
+		{
+			b[this.count++] = (byte) c;
+		}
+		else if (c < 0x800)
+		{
+			b[this.count++] = (byte) (0xC0 | c >> 6);
+			b[this.count++] = (byte) (0x80 | c & 0x3F);
+		}
+		else if (Character.isHighSurrogate(c))
+		{
+			this.high = c;
+		}
+		else if (Character.isLowSurrogate(c))
+		{
+			b[this.count++] = '?';
+		}
+		else
+		{
+			b[this.count++] = (byte) (0xE0 | c >> 12);
+			b[this.count++] = (byte) (0x80 | c >> 6 & 0x3F);
+			b[this.count++] = (byte) (0x80 | c & 0x3F);
+		}
+	}
+
+	/**
+	 * Copy bytes that are already UTF-8 to the output. Blocks at least as
+	 * large as the buffer are drained directly.
+	 */
+	void writeUTF8(final byte[] b, final int off, final int len)
+			throws IOException
+	{
+		this.endSurrogate();
+
+		if (len > this.buf.length - this.count)
+		{
+			this.flushBuffer();
+
+			if (len >= this.buf.length)
+			{
+				this.drain(b, off, len);
+				return;
+			}
+		}
+
+		System.arraycopy(b, off, this.buf, this.count, len);
+
+		this.count += len;
+	}
+
+	/**
+	 * Write a high surrogate still waiting for its low surrogate as '?'.
+	 */
+	final void endSurrogate() throws IOException
+	{
+		if (this.high != 0)
+		{
+			this.high = 0;
+			this.encode('?');
+		}
+	}
+
+	/**
+	 * Drain the buffer.
+	 */
+	final void flushBuffer() throws IOException
+	{
+		if (this.count > 0)
+		{
+			final int n = this.count;
+
+			this.count = 0;
+			this.drain(this.buf, 0, n);
+		}
+	}
+}
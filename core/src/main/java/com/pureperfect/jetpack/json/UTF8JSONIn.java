@@ -0,0 +1,89 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Unmarshalls UTF-8 encoded {@link JSON} from bytes into the same
+ * {@link JSONData} as {@link JSONIn}, without decoding the input to characters
+ * first. The values are built from the tokens of a {@link JSONReader} reading
+ * the bytes: all of the {@link JSON} syntax is ASCII, so the bytes are scanned
+ * as they are, and only strings are decoded. Strings that are all ASCII are
+ * copied to a {@link String} directly; other strings are checked to be valid
+ * UTF-8 while they are decoded.
+ * 
+ * <p>
+ * A byte array is parsed where it is, without being copied. A stream is read
+ * in large blocks into a buffer, and is not read past the end of a value
+ * until it is needed for the next one. A byte order mark at the start of the
+ * input is skipped.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class UTF8JSONIn extends JSONIn
+{
+	/**
+	 * Parse a stream.
+	 * 
+	 * @param in
+	 *            the stream to read from
+	 */
+	public UTF8JSONIn(final InputStream in)
+	{
+		this(in, JSONIn.DEFAULT_BUFFER_SIZE);
+	}
+
+	UTF8JSONIn(final InputStream in, final int size)
+	{
+		this(new ByteScanner(in, size));
+	}
+
+	/**
+	 * Parse an array.
+	 * 
+	 * @param data
+	 *            the bytes to parse
+	 */
+	public UTF8JSONIn(final byte[] data)
+	{
+		this(data, 0, data.length);
+	}
+
+	/**
+	 * Parse part of an array.
+	 * 
+	 * @param data
+	 *            the bytes to parse
+	 * @param offset
+	 *            the first byte to parse
+	 * @param length
+	 *            the number of bytes to parse
+	 */
+	public UTF8JSONIn(final byte[] data, final int offset, final int length)
+	{
+		this(new ByteScanner(ByteBuffer.wrap(data, offset, length)));
+	}
+
+	UTF8JSONIn(final ByteScanner in)
+	{
+		super(new JSONReader(in));
+	}
+}
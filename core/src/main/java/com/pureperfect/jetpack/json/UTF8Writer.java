@@ -0,0 +1,82 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes characters as UTF-8 directly into a byte buffer, which is written to
+ * the output stream when it is full or flushed. See {@link UTF8Encoder} for
+ * how characters are encoded.
+ * 
+ * <p>
+ * Unlike an {@link java.io.OutputStreamWriter} this class is not synchronized,
+ * and must only be used by one thread at a time.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class UTF8Writer extends UTF8Encoder
+{
+	private OutputStream out;
+
+	UTF8Writer(final OutputStream out)
+	{
+		this(out, DEFAULT_BUFFER_SIZE);
+	}
+
+	UTF8Writer(final OutputStream out, final int size)
+	{
+		super(new byte[Math.max(size, 4)]);
+
+		this.out = out;
+	}
+
+	/**
+	 * Write to another stream, keeping the buffer. Anything not yet written
+	 * to the previous stream is discarded.
+	 */
+	void reset(final OutputStream out)
+	{
+		this.out = out;
+		this.discard();
+	}
+
+	@Override
+	void drain(final byte[] b, final int off, final int len)
+			throws IOException
+	{
+		this.out.write(b, off, len);
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		this.flushBuffer();
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		this.endSurrogate();
+		this.flushBuffer();
+		this.out.close();
+	}
+}
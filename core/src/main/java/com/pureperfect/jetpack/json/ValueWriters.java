@@ -0,0 +1,522 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.BaseStream;
+
+/**
+ * The built in rules of {@link JSONOut}, as one {@link JSONSerializer} per
+ * class. The serializer for a class is worked out the first time an instance
+ * of it is written, so writing an object is one lookup instead of a chain of
+ * type checks.
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+final class ValueWriters
+{
+	private static final JSONSerializer<Object> DATA = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			((JSONData) o).writeTo(out);
+		}
+	};
+
+	private static final JSONSerializer<Object> STRING = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeString((CharSequence) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> COLLECTION = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeCollection((Collection<?>) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> ITERABLE = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeIterator(((Iterable<?>) o).iterator());
+		}
+	};
+
+	private static final JSONSerializer<Object> ITERATOR = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeIterator((Iterator<?>) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> STREAM = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			final BaseStream<?, ?> stream = (BaseStream<?, ?>) o;
+
+			try
+			{
+				out.writeIterator(stream.iterator());
+			}
+			finally
+			{
+				stream.close();
+			}
+		}
+	};
+
+	private static final JSONSerializer<Object> SPLITERATOR = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeIterator(Spliterators.iterator((Spliterator<?>) o));
+		}
+	};
+
+	private static final JSONSerializer<Object> MAP = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeMap((Map<?, ?>) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> OBJECT_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((Object[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> BOOLEAN_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((boolean[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> BYTE_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((byte[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> CHAR_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((char[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> DOUBLE_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((double[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> FLOAT_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((float[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> INT_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((int[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> LONG_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((long[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> SHORT_ARRAY = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeArray((short[]) o);
+		}
+	};
+
+	private static final JSONSerializer<Object> BOOLEAN = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Boolean) o).booleanValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> BYTE = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Byte) o).byteValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> DOUBLE = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Double) o).doubleValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> FLOAT = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Float) o).floatValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> INTEGER = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Integer) o).intValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> LONG = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Long) o).longValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> SHORT = new JSONSerializer<Object>()
+	{
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.write(((Short) o).shortValue());
+		}
+	};
+
+	private static final JSONSerializer<Object> MAPPED = new Mapped(null);
+
+	private static final ClassValue<JSONSerializer<Object>> writers = new ClassValue<JSONSerializer<Object>>()
+	{
+		@Override
+		protected JSONSerializer<Object> computeValue(final Class<?> type)
+		{
+			if (JSONData.class.isAssignableFrom(type))
+			{
+				return DATA;
+			}
+			else if (CharSequence.class.isAssignableFrom(type))
+			{
+				return STRING;
+			}
+			else if (Collection.class.isAssignableFrom(type))
+			{
+				return COLLECTION;
+			}
+			else if (Map.class.isAssignableFrom(type))
+			{
+				return MAP;
+			}
+			else if (type.isArray())
+			{
+				return array(type.getComponentType());
+			}
+			else if (type == Integer.class)
+			{
+				return INTEGER;
+			}
+			else if (type == Long.class)
+			{
+				return LONG;
+			}
+			else if (type == Double.class)
+			{
+				return DOUBLE;
+			}
+			else if (type == Boolean.class)
+			{
+				return BOOLEAN;
+			}
+			else if (type == Float.class)
+			{
+				return FLOAT;
+			}
+			else if (type == Short.class)
+			{
+				return SHORT;
+			}
+			else if (type == Byte.class)
+			{
+				return BYTE;
+			}
+
+			final JSONSerializer<Object> compiled = CompiledSerializers
+					.forClass(type);
+
+			if (compiled != null)
+			{
+				return new Mapped(compiled);
+			}
+
+			if (!hasMappedGetters(type))
+			{
+				if (Iterable.class.isAssignableFrom(type)
+						&& !iteratesOverItself(type))
+				{
+					return ITERABLE;
+				}
+				else if (Iterator.class.isAssignableFrom(type))
+				{
+					return ITERATOR;
+				}
+				else if (BaseStream.class.isAssignableFrom(type))
+				{
+					return STREAM;
+				}
+				else if (Spliterator.class.isAssignableFrom(type))
+				{
+					return SPLITERATOR;
+				}
+			}
+
+			return MAPPED;
+		}
+	};
+
+	private ValueWriters()
+	{
+		// hide me
+	}
+
+	/**
+	 * Check for getters annotated with {@link JSON}, so that mapped types are
+	 * written as objects even when they can be iterated. The configured
+	 * {@link com.pureperfect.jetpack.FieldReader} is deliberately not asked:
+	 * the result is cached per class for every {@link JSONOut}.
+	 */
+	private static boolean hasMappedGetters(final Class<?> type)
+	{
+		for (Class<?> c = type; c != null && c != Object.class; c = c
+				.getSuperclass())
+		{
+			for (final Method m : c.getDeclaredMethods())
+			{
+				if (m.isAnnotationPresent(JSON.class))
+				{
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check whether a type is an {@link Iterable} of its own type, like
+	 * {@link java.nio.file.Path}, whose elements would be written as arrays
+	 * forever.
+	 */
+	private static boolean iteratesOverItself(final Class<?> type)
+	{
+		return iteratesOver(type, type);
+	}
+
+	private static boolean iteratesOver(final Type t, final Class<?> type)
+	{
+		if (t instanceof ParameterizedType)
+		{
+			final ParameterizedType p = (ParameterizedType) t;
+
+			if (p.getRawType() == Iterable.class)
+			{
+				final Type element = p.getActualTypeArguments()[0];
+
+				return element instanceof Class
+						&& ((Class<?>) element).isAssignableFrom(type);
+			}
+
+			return iteratesOver(p.getRawType(), type);
+		}
+		else if (t instanceof Class)
+		{
+			final Class<?> c = (Class<?>) t;
+
+			for (final Type i : c.getGenericInterfaces())
+			{
+				if (iteratesOver(i, type))
+				{
+					return true;
+				}
+			}
+
+			return c.getGenericSuperclass() != null
+					&& iteratesOver(c.getGenericSuperclass(), type);
+		}
+
+		return false;
+	}
+
+	private static JSONSerializer<Object> array(final Class<?> component)
+	{
+		if (!component.isPrimitive())
+		{
+			return OBJECT_ARRAY;
+		}
+		else if (component == int.class)
+		{
+			return INT_ARRAY;
+		}
+		else if (component == long.class)
+		{
+			return LONG_ARRAY;
+		}
+		else if (component == double.class)
+		{
+			return DOUBLE_ARRAY;
+		}
+		else if (component == byte.class)
+		{
+			return BYTE_ARRAY;
+		}
+		else if (component == boolean.class)
+		{
+			return BOOLEAN_ARRAY;
+		}
+		else if (component == float.class)
+		{
+			return FLOAT_ARRAY;
+		}
+		else if (component == short.class)
+		{
+			return SHORT_ARRAY;
+		}
+
+		return CHAR_ARRAY;
+	}
+
+	/**
+	 * Get the serializer for the built in rules of a class.
+	 * 
+	 * @param type
+	 *            the class to write
+	 * @return the serializer
+	 */
+	static JSONSerializer<Object> forClass(final Class<?> type)
+	{
+		return writers.get(type);
+	}
+
+	/**
+	 * Writes mapped types, with their {@link CompiledSerializer} if there is
+	 * one.
+	 */
+	private static final class Mapped implements JSONSerializer<Object>
+	{
+		private final JSONSerializer<Object> compiled;
+
+		Mapped(final JSONSerializer<Object> compiled)
+		{
+			this.compiled = compiled;
+		}
+
+		@Override
+		public void write(final Object o, final JSONOut out)
+				throws IOException
+		{
+			out.writeMapped(o, this.compiled);
+		}
+	}
+}
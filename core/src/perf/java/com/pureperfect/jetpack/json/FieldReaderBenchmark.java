@@ -5,8 +5,10 @@ import java.util.Iterator;
 import org.junit.Test;
 
 import com.pureperfect.jetpack.AnnotationReader;
+import com.pureperfect.jetpack.CachingAnnotationReader;
 import com.pureperfect.jetpack.Field;
 import com.pureperfect.jetpack.FieldReader;
+import com.pureperfect.jetpack.LambdaAnnotationReader;
 import com.pureperfect.jetpack.SlightlyFasterAnnotationReader;
 import com.pureperfect.jetpack.mock.MappedTypeStub;
 
@@ -17,6 +19,8 @@ public class FieldReaderBenchmark
 	{
 		runSimpleBenchmark(new AnnotationReader(JSON.class));
 		runSimpleBenchmark(new SlightlyFasterAnnotationReader(JSON.class));
+		runSimpleBenchmark(new CachingAnnotationReader(JSON.class));
+		runSimpleBenchmark(new LambdaAnnotationReader(JSON.class));
 	}
 	
 	public void runSimpleBenchmark(FieldReader reader)
@@ -0,0 +1,81 @@
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JSONInBenchmark
+{
+	static String document(final int records) throws IOException
+	{
+		final List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+
+		for (int i = 0; i < records; ++i)
+		{
+			final Map<String, Object> m = new LinkedHashMap<String, Object>();
+
+			m.put("id", i);
+			m.put("name", "name number " + i);
+			m.put("price", i * 0.25);
+			m.put("tags", new String[] { "a", "b\nc" });
+			m.put("active", i % 2 == 0);
+
+			list.add(m);
+		}
+
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(list);
+
+		return w.toString();
+	}
+
+	@Test
+	public void parse() throws IOException
+	{
+		final String doc = document(200000);
+
+		System.out.println("Parsing " + doc.length() / 1024 / 1024 + " MB");
+
+		for (int c = 0; c < 5; ++c)
+		{
+			final long start = System.currentTimeMillis();
+
+			new JSONIn(new StringReader(doc)).read();
+
+			System.out.println("JSONIn: "
+					+ (System.currentTimeMillis() - start) + " ms");
+		}
+	}
+	@Test
+	public void parseUTF8() throws IOException
+	{
+		final byte[] doc = document(200000).getBytes(StandardCharsets.UTF_8);
+
+		for (int c = 0; c < 5; ++c)
+		{
+			long start = System.currentTimeMillis();
+
+			new JSONIn(new ByteArrayInputStream(doc), StandardCharsets.UTF_8)
+					.read();
+
+			System.out.println("JSONIn (decoded): "
+					+ (System.currentTimeMillis() - start) + " ms");
+
+			start = System.currentTimeMillis();
+
+			new UTF8JSONIn(doc).read();
+
+			System.out.println("UTF8JSONIn: "
+					+ (System.currentTimeMillis() - start) + " ms");
+		}
+	}
+}
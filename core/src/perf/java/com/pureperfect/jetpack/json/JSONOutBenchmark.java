@@ -0,0 +1,159 @@
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+
+public class JSONOutBenchmark
+{
+	@Test
+	public void mappedTypes() throws IOException
+	{
+		runSimpleBenchmark("reflection", new JSONOut(new NullWriter()));
+
+		JSONOut generated = new JSONOut(new NullWriter());
+		generated.setGenerateSerializers(true);
+
+		runSimpleBenchmark("generated serializers", generated);
+	}
+
+	@Test
+	public void utf8Output() throws IOException
+	{
+		final Charset utf8 = Charset.forName("UTF-8");
+
+		runSimpleBenchmark("OutputStreamWriter", new JSONOut(
+				new OutputStreamWriter(new NullOutputStream(), utf8)));
+
+		runSimpleBenchmark("UTF-8 bytes", new JSONOut(new NullOutputStream()));
+	}
+
+	@Test
+	public void parallelArrays() throws IOException
+	{
+		final double[] doubles = new double[2000000];
+
+		for (int i = 0; i < doubles.length; ++i)
+		{
+			doubles[i] = Math.random() * i;
+		}
+
+		final JSONOut serial = new JSONOut(new NullOutputStream());
+
+		final JSONOut parallel = new JSONOut(new NullOutputStream());
+		parallel.setParallelPool(ForkJoinPool.commonPool());
+
+		for (int c = 0; c < 3; ++c)
+		{
+			long start = System.currentTimeMillis();
+			serial.write(doubles);
+			System.out.println("serial: "
+					+ (System.currentTimeMillis() - start) + " ms");
+
+			start = System.currentTimeMillis();
+			parallel.write(doubles);
+			System.out.println("parallel: "
+					+ (System.currentTimeMillis() - start) + " ms");
+		}
+	}
+
+	public void runSimpleBenchmark(String name, JSONOut out) throws IOException
+	{
+		System.out.println("Running benchmark for: " + name);
+
+		MappedTypeStub o = new MappedTypeStub();
+
+		o.setId(23);
+		o.setIq(190);
+		o.setName("myname");
+
+		long cumulativeTime = 0;
+
+		for (int c = 0; c < 5; ++c)
+		{
+			long start = System.currentTimeMillis();
+
+			for (int i = 0; i < 500000; ++i)
+			{
+				out.write(o);
+			}
+
+			cumulativeTime += System.currentTimeMillis() - start;
+		}
+
+		System.out.println("Total elapsed time (ms): " + cumulativeTime);
+	}
+
+	/**
+	 * Discards everything so only the cost of encoding is measured.
+	 */
+	static class NullOutputStream extends OutputStream
+	{
+		@Override
+		public void write(int b)
+		{
+			// discard
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			// discard
+		}
+	}
+
+	/**
+	 * Discards everything so only the cost of serializing is measured.
+	 */
+	static class NullWriter extends Writer
+	{
+		@Override
+		public void write(char[] cbuf, int off, int len)
+		{
+			// discard
+		}
+
+		@Override
+		public void write(int c)
+		{
+			// discard
+		}
+
+		@Override
+		public void write(String str, int off, int len)
+		{
+			// discard
+		}
+
+		@Override
+		public Writer append(CharSequence csq)
+		{
+			return this;
+		}
+
+		@Override
+		public Writer append(char c)
+		{
+			return this;
+		}
+
+		@Override
+		public void flush()
+		{
+			// discard
+		}
+
+		@Override
+		public void close()
+		{
+			// discard
+		}
+	}
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class ByteBufferWriterTest extends TestCase
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String[] SAMPLES = new String[] { "", "hello",
+			"caf\u00e9", "\u2603 snow", "\uD83D\uDE00 smile", "a\uD83Db",
+			"\uDE00", "end\uD83D" };
+
+	/**
+	 * Records the buffers written and passes them on to a stream.
+	 */
+	private static class RecordingChannel implements WritableByteChannel
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		private final WritableByteChannel out = Channels
+				.newChannel(this.bytes);
+
+		ByteBuffer last;
+
+		boolean closed;
+
+		@Override
+		public int write(final ByteBuffer src) throws IOException
+		{
+			this.last = src;
+
+			return this.out.write(src);
+		}
+
+		@Override
+		public boolean isOpen()
+		{
+			return !this.closed;
+		}
+
+		@Override
+		public void close()
+		{
+			this.closed = true;
+		}
+	}
+
+	/**
+	 * What a UTF8Writer writes for the same characters.
+	 */
+	private static byte[] expected(final String s) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final Writer w = new UTF8Writer(bytes);
+
+		w.write(s);
+		w.close();
+
+		return bytes.toByteArray();
+	}
+
+	public void testStrings() throws IOException
+	{
+		for (final String s : SAMPLES)
+		{
+			final RecordingChannel channel = new RecordingChannel();
+
+			final Writer w = new ByteBufferWriter(channel);
+
+			w.write(s);
+			w.write(s.toCharArray());
+			w.append(new StringBuilder(s));
+
+			for (int i = 0; i < s.length(); ++i)
+			{
+				w.append(s.charAt(i));
+			}
+
+			w.close();
+
+			assertTrue(channel.closed);
+
+			assertTrue(s, Arrays.equals(expected(s + s + s + s), channel.bytes
+					.toByteArray()));
+		}
+	}
+
+	public void testSmallBuffers() throws IOException
+	{
+		final StringBuilder s = new StringBuilder();
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			s.append(i % 7 == 0 ? "\u00e9" : i % 11 == 0 ? "\uD83D\uDE00"
+					: "x");
+		}
+
+		for (int size = 4; size < 9; ++size)
+		{
+			for (final ByteBuffer buffer : new ByteBuffer[] {
+					ByteBuffer.allocate(size), ByteBuffer.allocateDirect(size) })
+			{
+				final RecordingChannel channel = new RecordingChannel();
+
+				final Writer w = new ByteBufferWriter(channel, buffer);
+
+				w.write(s.toString());
+				w.write(s.toString().toCharArray());
+				w.flush();
+
+				assertSame(buffer, channel.last);
+				assertTrue(Arrays.equals(expected(s.toString() + s),
+						channel.bytes.toByteArray()));
+			}
+		}
+	}
+
+	public void testBuffersUntilFlush() throws IOException
+	{
+		final RecordingChannel channel = new RecordingChannel();
+
+		final Writer w = new ByteBufferWriter(channel);
+
+		w.write("abc");
+
+		assertEquals(0, channel.bytes.size());
+
+		w.flush();
+
+		assertEquals("abc", new String(channel.bytes.toByteArray(), UTF_8));
+		assertFalse(channel.closed);
+	}
+
+	public void testInvalidBuffers()
+	{
+		final RecordingChannel channel = new RecordingChannel();
+
+		for (final ByteBuffer buffer : new ByteBuffer[] {
+				ByteBuffer.allocate(3),
+				ByteBuffer.allocate(16).asReadOnlyBuffer() })
+		{
+			try
+			{
+				new ByteBufferWriter(channel, buffer);
+				fail();
+			}
+			catch (final IllegalArgumentException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	public void testJSONOut() throws IOException
+	{
+		final MappedTypeStub p = new MappedTypeStub();
+
+		p.setId(23);
+		p.setName("caf\u00e9 \"\uD83D\uDE00\"");
+
+		final RecordingChannel channel = new RecordingChannel();
+
+		final JSONOut out = new JSONOut(channel, ByteBuffer.allocateDirect(16));
+
+		out.write(p);
+		out.flush();
+
+		final ByteArrayOutputStream reference = new ByteArrayOutputStream();
+
+		final JSONOut ref = new JSONOut(reference);
+
+		ref.write(p);
+		ref.flush();
+
+		assertTrue(Arrays.equals(reference.toByteArray(), channel.bytes
+				.toByteArray()));
+	}
+
+	public void testNonBlockingChannelRejected() throws IOException
+	{
+		final Pipe pipe = Pipe.open();
+
+		try
+		{
+			pipe.sink().configureBlocking(false);
+
+			new ByteBufferWriter(pipe.sink());
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+		finally
+		{
+			pipe.sink().close();
+			pipe.source().close();
+		}
+	}
+
+	public void testChannelAcceptingNothing() throws IOException
+	{
+		final WritableByteChannel full = new RecordingChannel()
+		{
+			@Override
+			public int write(final ByteBuffer src)
+			{
+				return 0;
+			}
+		};
+
+		final Writer w = new ByteBufferWriter(full, ByteBuffer.allocate(8));
+
+		w.write("0123");
+
+		try
+		{
+			w.flush();
+			fail();
+		}
+		catch (final IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("4 bytes"));
+		}
+	}
+
+	public void testHeapBufferSharesArray() throws IOException
+	{
+		final RecordingChannel channel = new RecordingChannel();
+
+		final ByteBuffer buffer = ByteBuffer.allocate(8);
+
+		final Writer w = new ByteBufferWriter(channel, buffer);
+
+		w.write("caf\u00e9 \uD83D\uDE00 0123456789");
+		w.close();
+
+		assertSame(buffer, channel.last);
+		assertTrue(Arrays.equals(expected("caf\u00e9 \uD83D\uDE00 0123456789"),
+				channel.bytes.toByteArray()));
+	}
+
+	public void testSlicedBuffers() throws IOException
+	{
+		final String s = "caf\u00e9 \uD83D\uDE00 0123456789";
+
+		final byte[] array = new byte[40];
+
+		for (final ByteBuffer buffer : new ByteBuffer[] {
+				ByteBuffer.wrap(array, 0, 8).slice(),
+				ByteBuffer.wrap(array, 16, 8).slice() })
+		{
+			Arrays.fill(array, (byte) '#');
+
+			final RecordingChannel channel = new RecordingChannel();
+
+			final Writer w = new ByteBufferWriter(channel, buffer);
+
+			w.write(s);
+			w.close();
+
+			assertTrue(Arrays.equals(expected(s), channel.bytes.toByteArray()));
+
+			/*
+			 * Nothing outside the slice is touched.
+			 */
+			for (int i = 0; i < array.length; ++i)
+			{
+				if (i < buffer.arrayOffset()
+						|| i >= buffer.arrayOffset() + buffer.capacity())
+				{
+					assertEquals(i + "", '#', array[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class CharFormatterTest extends TestCase
+{
+	private static String format(final CharSequence s) throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		CharFormatter.singleton().write(s, w);
+
+		return w.toString();
+	}
+
+	public void testPlain() throws IOException
+	{
+		assertEquals("", format(""));
+		assertEquals("hello world", format("hello world"));
+		assertEquals("caf\u00e9 \u2603", format("caf\u00e9 \u2603"));
+	}
+
+	public void testShortEscapes() throws IOException
+	{
+		assertEquals("\\\"a\\\\b\\/c\\bd\\fe\\nf\\rg\\th",
+				format("\"a\\b/c\bd\fe\nf\rg\th"));
+	}
+
+	public void testControlCharacters() throws IOException
+	{
+		assertEquals("\\u0000", format("\u0000"));
+		assertEquals("a\\u0001b", format("a\u0001b"));
+		assertEquals("\\u001f", format("\u001f"));
+		assertEquals("\u007f", format("\u007f"));
+	}
+
+	public void testRuns() throws IOException
+	{
+		assertEquals("\\n\\nabc\\n", format("\n\nabc\n"));
+		assertEquals("abc\\\"", format("abc\""));
+		assertEquals("\\\"abc", format("\"abc"));
+	}
+
+	public void testCharSequence() throws IOException
+	{
+		assertEquals("a\\tb\\u0002c", format(new StringBuilder("a\tb\u0002c")));
+		assertEquals("plain", format(new StringBuilder("plain")));
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.CachingAnnotationReader;
+import com.pureperfect.jetpack.Field;
+import com.pureperfect.jetpack.FieldReader;
+import com.pureperfect.jetpack.LambdaAnnotationReader;
+import com.pureperfect.jetpack.SerializeException;
+import com.pureperfect.jetpack.TypeConverter;
+import com.pureperfect.jetpack.TypedFieldReader;
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+import com.pureperfect.jetpack.mock.NestedMappedType;
+import com.pureperfect.jetpack.mock.PrimitiveTypesStub;
+
+/**
+ *
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class FieldVisitorTest extends TestCase
+{
+	private static final TypedFieldReader[] READERS = new TypedFieldReader[] {
+			new CachingAnnotationReader(JSON.class),
+			new LambdaAnnotationReader(JSON.class) };
+
+	private static String write(final Object o, final FieldReader reader,
+			final TypeConverter converter) throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut out = new JSONOut(w);
+
+		out.setFieldReader(reader);
+		out.setTypeConverter(converter);
+		out.write(o);
+
+		return w.toString();
+	}
+
+	/**
+	 * Hides the visitor so fields are read as {@link Field Fields}.
+	 */
+	private static FieldReader iterating(final FieldReader reader)
+	{
+		return new FieldReader()
+		{
+			@Override
+			public Iterator<Field> read(final Object o)
+			{
+				return reader.read(o);
+			}
+		};
+	}
+
+	public void testSameOutputAsFields() throws IOException
+	{
+		final MappedTypeStub p = new MappedTypeStub();
+
+		p.setId(23);
+		p.setName("rb");
+
+		final NestedMappedType nested = new NestedMappedType();
+
+		nested.setName("outer");
+		nested.setChild(p);
+
+		for (final TypedFieldReader reader : READERS)
+		{
+			for (final Object o : new Object[] { p, nested,
+					new PrimitiveTypesStub() })
+			{
+				final TypeConverter converter = JSONTypeConverter
+						.defaultInstance();
+
+				assertEquals(write(o, iterating(reader), converter),
+						write(o, reader, converter));
+			}
+		}
+	}
+
+	public void testPrimitivesNotBoxed() throws IOException
+	{
+		for (final TypedFieldReader reader : READERS)
+		{
+			final String json = write(new PrimitiveTypesStub(), reader,
+					new PrimitiveOnlyConverter());
+
+			assertTrue(json, json.contains("\"boolean\":true"));
+			assertTrue(json, json.contains("\"byte\":-8"));
+			assertTrue(json, json.contains("\"char\":c"));
+			assertTrue(json, json.contains("\"double\":171.6"));
+			assertTrue(json, json.contains("\"float\":171.6"));
+			assertTrue(json, json.contains("\"int\":171"));
+			assertTrue(json, json.contains("\"long\":1099511627776"));
+			assertTrue(json, json.contains("\"short\":1024"));
+			assertTrue(json, json.contains("\"string\":\"rb\""));
+		}
+	}
+
+	public void testUnmappedType() throws IOException
+	{
+		for (final TypedFieldReader reader : READERS)
+		{
+			assertEquals("x", write(new Unmapped(), reader, JSONTypeConverter
+					.defaultInstance()));
+		}
+	}
+
+	public void testStaticGetter() throws IOException
+	{
+		for (final TypedFieldReader reader : READERS)
+		{
+			for (final FieldReader r : new FieldReader[] { reader,
+					iterating(reader) })
+			{
+				assertEquals("{\"id\":1,\"name\":\"s\"}", write(
+						new StaticGetter(), r, JSONTypeConverter
+								.defaultInstance()));
+			}
+		}
+	}
+
+	public void testGetterWithParameters() throws IOException
+	{
+		for (final TypedFieldReader reader : READERS)
+		{
+			for (final FieldReader r : new FieldReader[] { reader,
+					iterating(reader) })
+			{
+				try
+				{
+					write(new ParameterGetter(), r, JSONTypeConverter
+							.defaultInstance());
+					fail();
+				}
+				catch (final SerializeException e)
+				{
+					assertTrue(e.getMessage(), e.getMessage().contains(
+							"getName(int)"));
+				}
+			}
+		}
+	}
+
+	public void testGetterExceptionWrapped() throws IOException
+	{
+		for (final TypedFieldReader reader : READERS)
+		{
+			for (final FieldReader r : new FieldReader[] { reader,
+					iterating(reader) })
+			{
+				try
+				{
+					write(new FailingGetter(), r, JSONTypeConverter
+							.defaultInstance());
+					fail();
+				}
+				catch (final SerializeException e)
+				{
+					Throwable cause = e.getCause();
+
+					while (cause.getCause() != null)
+					{
+						cause = cause.getCause();
+					}
+
+					assertTrue(cause instanceof IllegalStateException);
+				}
+			}
+		}
+	}
+
+	public static class StaticGetter
+	{
+		@JSON
+		public static String getName()
+		{
+			return "s";
+		}
+
+		@JSON
+		public int getId()
+		{
+			return 1;
+		}
+	}
+
+	public static class ParameterGetter
+	{
+		@JSON
+		public String getName(final int i)
+		{
+			return "p" + i;
+		}
+	}
+
+	public static class FailingGetter
+	{
+		@JSON
+		public String getName()
+		{
+			throw new IllegalStateException();
+		}
+	}
+
+	public static class Unmapped
+	{
+		@Override
+		public String toString()
+		{
+			return "x";
+		}
+	}
+
+	/**
+	 * Fails if a boxed primitive is converted as an object.
+	 */
+	private static class PrimitiveOnlyConverter extends JSONTypeConverter
+	{
+		@Override
+		public CharSequence convert(final Object o)
+		{
+			if (o instanceof Number || o instanceof Boolean)
+			{
+				throw new AssertionError("boxed " + o);
+			}
+
+			return super.convert(o);
+		}
+	}
+}
@@ -45,4 +45,15 @@ public class JSONArrayTest extends TestCase
 
 		assertEquals("[1,2,3]", array.toText().toString());
 	}
+
+	public void testStrings()
+	{
+		final JSONArray<String> array = new JSONArray<String>();
+
+		array.add("one");
+		array.add("t\"wo");
+		array.add(null);
+
+		assertEquals("[\"one\",\"t\\\"wo\",null]", array.toText().toString());
+	}
 }
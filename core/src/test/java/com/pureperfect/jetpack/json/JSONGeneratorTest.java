@@ -0,0 +1,155 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONGeneratorTest extends TestCase
+{
+	private StringWriter w;
+
+	private JSONGenerator gen;
+
+	@Override
+	public void setUp()
+	{
+		this.w = new StringWriter();
+		this.gen = new JSONGenerator(this.w);
+	}
+
+	public void testObject() throws IOException
+	{
+		this.gen.beginObject().name("id").value(23).name("name").value(
+				"r\"b").name("tags").beginArray().value("a").value(1.5)
+				.value(true).nullValue().endArray().name("empty")
+				.beginObject().endObject().endObject();
+
+		assertEquals("{\"id\":23,\"name\":\"r\\\"b\",\"tags\":[\"a\",1.5,"
+				+ "true,null],\"empty\":{}}", this.w.toString());
+	}
+
+	public void testSameAsJSONOut() throws IOException
+	{
+		final Map<String, Object> map = new LinkedHashMap<String, Object>();
+
+		map.put("long", Long.MAX_VALUE);
+		map.put("double", 1.0E22);
+		map.put("float", 171.6f);
+		map.put("string", "tab\there");
+		map.put("list", Arrays.asList(1, 2));
+
+		final StringWriter expected = new StringWriter();
+
+		new JSONOut(expected).write(map);
+
+		this.gen.beginObject().name("long").value(Long.MAX_VALUE).name(
+				"double").value(1.0E22).name("float").value(171.6f).name(
+				"string").value("tab\there").name("list").value(
+				Arrays.asList(1, 2)).endObject();
+
+		assertEquals(expected.toString(), this.w.toString());
+	}
+
+	public void testNestedArrays() throws IOException
+	{
+		for (int i = 0; i < 40; ++i)
+		{
+			this.gen.beginArray();
+		}
+
+		for (int i = 0; i < 40; ++i)
+		{
+			this.gen.endArray();
+		}
+
+		assertEquals(80, this.w.toString().length());
+		assertTrue(this.w.toString().startsWith("[[[["));
+	}
+
+	public void testEscapedName() throws IOException
+	{
+		this.gen.beginObject().name("a\"b").value(1).endObject();
+
+		assertEquals("{\"a\\\"b\":1}", this.w.toString());
+	}
+
+	public void testValueWithoutName() throws IOException
+	{
+		this.gen.beginObject();
+
+		try
+		{
+			this.gen.value(1);
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	public void testNameInArray() throws IOException
+	{
+		this.gen.beginArray();
+
+		try
+		{
+			this.gen.name("x");
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	public void testMismatchedEnd() throws IOException
+	{
+		this.gen.beginArray();
+
+		try
+		{
+			this.gen.endObject();
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			new JSONGenerator(new StringWriter()).endArray();
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+	}
+}
@@ -21,20 +21,34 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 
 import junit.framework.TestCase;
 
+import com.pureperfect.jetpack.Field;
+import com.pureperfect.jetpack.LambdaAnnotationReader;
 import com.pureperfect.jetpack.Output;
 import com.pureperfect.jetpack.json.JSONOut;
+import com.pureperfect.jetpack.mock.IterableMappedStub;
 import com.pureperfect.jetpack.mock.MappedTypeStub;
 import com.pureperfect.jetpack.mock.NestedArrayStub;
 import com.pureperfect.jetpack.mock.NestedCollectionStub;
 import com.pureperfect.jetpack.mock.NestedMapStub;
+import com.pureperfect.jetpack.mock.PrimitiveTypesStub;
 
 /**
  * 
@@ -172,20 +186,12 @@ public class JSONMarshallerTest extends TestCase
 
 		in.read(result);
 
-		/*
-		 * WARNING this test assumes that the fields are in a set order. It may
-		 * not work on your platform.
-		 */
-		assertEquals("{\"iq\":null,\"name\":\"rb\",\"id\":23}",
+		assertEquals("{\"id\":23,\"iq\":null,\"name\":\"rb\"}",
 				new String(result));
 	}
 
 	public void testNestedArray() throws IOException
 	{
-		/*
-		 * WARNING this test assumes that the fields are in a set order. It may
-		 * not work on your platform.
-		 */
 		final Writer w = new OutputStreamWriter(this.out);
 
 		final Output jm = new JSONOut(w);
@@ -203,18 +209,6 @@ public class JSONMarshallerTest extends TestCase
 
 		assertEquals('{', this.in.read());
 		assertEquals('"', this.in.read());
-		assertEquals('n', this.in.read());
-		assertEquals('a', this.in.read());
-		assertEquals('m', this.in.read());
-		assertEquals('e', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals(':', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals('r', this.in.read());
-		assertEquals('b', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals(',', this.in.read());
-		assertEquals('"', this.in.read());
 		assertEquals('a', this.in.read());
 		assertEquals('r', this.in.read());
 		assertEquals('r', this.in.read());
@@ -229,9 +223,45 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals(',', this.in.read());
 		assertEquals('3', this.in.read());
 		assertEquals(']', this.in.read());
+		assertEquals(',', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals('n', this.in.read());
+		assertEquals('a', this.in.read());
+		assertEquals('m', this.in.read());
+		assertEquals('e', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals(':', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals('r', this.in.read());
+		assertEquals('b', this.in.read());
+		assertEquals('"', this.in.read());
 		assertEquals('}', this.in.read());
 	}
 
+	public void testLambdaAnnotationReader() throws IOException
+	{
+		final Writer w = new OutputStreamWriter(this.out);
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.setFieldReader(new LambdaAnnotationReader(JSON.class));
+
+		final NestedArrayStub testme = new NestedArrayStub();
+
+		testme.setName("rb");
+		testme.setArray(new int[] { 1, 2 });
+
+		jm.write(testme);
+
+		jm.flush();
+
+		byte[] result = new byte[27];
+
+		in.read(result);
+
+		assertEquals("{\"array\":[1,2],\"name\":\"rb\"}", new String(result));
+	}
+
 	public void testNestedCollection() throws IOException
 	{
 		final Writer w = new OutputStreamWriter(this.out);
@@ -257,10 +287,6 @@ public class JSONMarshallerTest extends TestCase
 
 		in.read(result);
 
-		/*
-		 * WARNING this test assumes that the fields are in a set order. It may
-		 * not work on your platform.
-		 */
 		assertEquals("{\"list\":[\"one\",\"two\"],\"name\":\"rb\"}",
 				new String(result));
 	}
@@ -287,18 +313,6 @@ public class JSONMarshallerTest extends TestCase
 
 		assertEquals('{', this.in.read());
 		assertEquals('"', this.in.read());
-		assertEquals('n', this.in.read());
-		assertEquals('a', this.in.read());
-		assertEquals('m', this.in.read());
-		assertEquals('e', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals(':', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals('r', this.in.read());
-		assertEquals('b', this.in.read());
-		assertEquals('"', this.in.read());
-		assertEquals(',', this.in.read());
-		assertEquals('"', this.in.read());
 		assertEquals('m', this.in.read());
 		assertEquals('a', this.in.read());
 		assertEquals('p', this.in.read());
@@ -321,15 +335,23 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals(':', this.in.read());
 		assertEquals('2', this.in.read());
 		assertEquals('}', this.in.read());
+		assertEquals(',', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals('n', this.in.read());
+		assertEquals('a', this.in.read());
+		assertEquals('m', this.in.read());
+		assertEquals('e', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals(':', this.in.read());
+		assertEquals('"', this.in.read());
+		assertEquals('r', this.in.read());
+		assertEquals('b', this.in.read());
+		assertEquals('"', this.in.read());
 		assertEquals('}', this.in.read());
 	}
 
 	public void testNestedMappedType() throws IOException
 	{
-		/*
-		 * WARNING this test assumes that the fields are sorted in a particular
-		 * order. It may not work on your platform.
-		 */
 		final Writer w = new OutputStreamWriter(this.out);
 
 		final Output jm = new JSONOut(w);
@@ -348,11 +370,7 @@ public class JSONMarshallerTest extends TestCase
 
 		in.read(result);
 
-		/*
-		 * WARNING this test assumes that the fields are in a set order. It may
-		 * not work on your platform.
-		 */
-		assertEquals("{\"iq\":null,\"name\":\"rb\",\"id\":23}",
+		assertEquals("{\"id\":23,\"iq\":null,\"name\":\"rb\"}",
 				new String(result));
 	}
 
@@ -412,7 +430,7 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('C', (char) this.in.read());
 		assertEquals(':', this.in.read());
 		assertEquals('\\', this.in.read());
-		assertEquals('\r', this.in.read());
+		assertEquals('r', this.in.read());
 		assertEquals('"', this.in.read());
 
 		// Escape /
@@ -436,7 +454,7 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('C', (char) this.in.read());
 		assertEquals(':', this.in.read());
 		assertEquals('\\', this.in.read());
-		assertEquals('\b', this.in.read());
+		assertEquals('b', this.in.read());
 		assertEquals('"', this.in.read());
 
 		// Escape \f
@@ -448,7 +466,7 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('C', (char) this.in.read());
 		assertEquals(':', this.in.read());
 		assertEquals('\\', this.in.read());
-		assertEquals('\f', this.in.read());
+		assertEquals('f', this.in.read());
 		assertEquals('"', this.in.read());
 
 		// Escape \n
@@ -460,7 +478,7 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('C', (char) this.in.read());
 		assertEquals(':', this.in.read());
 		assertEquals('\\', this.in.read());
-		assertEquals('\n', this.in.read());
+		assertEquals('n', this.in.read());
 		assertEquals('"', this.in.read());
 
 		// Escape \t
@@ -472,7 +490,7 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('C', (char) this.in.read());
 		assertEquals(':', this.in.read());
 		assertEquals('\\', this.in.read());
-		assertEquals('\t', this.in.read());
+		assertEquals('t', this.in.read());
 		assertEquals('"', this.in.read());
 	}
 
@@ -554,4 +572,376 @@ public class JSONMarshallerTest extends TestCase
 		assertEquals('7', this.in.read());
 		assertEquals('1', this.in.read());
 	}
+
+	public void testBoxedPrimitives() throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.write(Arrays.asList(1, 2L, (short) 3, (byte) 4, 5.5, 6.5f, true,
+				'c', new Date(7)));
+
+		assertEquals("[1,2,3,4,5.5,6.5,true,c,7]", w.toString());
+	}
+
+	public void testRegisteredSerializer() throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.register(Date.class, new JSONSerializer<Date>()
+		{
+			@Override
+			public void write(final Date o, final JSONOut out)
+					throws IOException
+			{
+				out.write("date:" + o.getTime());
+			}
+		});
+
+		jm.register(CharSequence.class, new JSONSerializer<CharSequence>()
+		{
+			@Override
+			public void write(final CharSequence o, final JSONOut out)
+					throws IOException
+			{
+				out.writeRaw("'" + o + "'");
+			}
+		});
+
+		jm.write(Arrays.asList(new Date(7), new java.sql.Date(8), "x"));
+
+		/*
+		 * The date serializer writes a string, which is also written by the
+		 * registered serializer.
+		 */
+		assertEquals("['date:7','date:8','x']", w.toString());
+	}
+
+	public void testClosestRegisteredSerializer() throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.register(Object.class, new JSONSerializer<Object>()
+		{
+			@Override
+			public void write(final Object o, final JSONOut out)
+					throws IOException
+			{
+				out.writeRaw("object");
+			}
+		});
+
+		jm.register(Number.class, new JSONSerializer<Number>()
+		{
+			@Override
+			public void write(final Number o, final JSONOut out)
+					throws IOException
+			{
+				out.writeRaw("number");
+			}
+		});
+
+		jm.write(1);
+		jm.write(Integer.valueOf(2));
+		jm.write("s");
+
+		/*
+		 * The int is written as a primitive.
+		 */
+		assertEquals("1numberobject", w.toString());
+	}
+
+	private static String write(final Object o) throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(o);
+
+		return w.toString();
+	}
+
+	public void testPrimitiveArrays() throws IOException
+	{
+		assertEquals("[true,false]", write(new boolean[] { true, false }));
+		assertEquals("[-1,2]", write(new byte[] { -1, 2 }));
+		assertEquals("[\"a\",\"b\",\"\\\"\"]", write(new char[] { 'a',
+				'b', '"' }));
+		assertEquals("[1.5,-0.25]", write(new double[] { 1.5, -0.25 }));
+		assertEquals("[1.5,171.6]", write(new float[] { 1.5f, 171.6f }));
+		assertEquals("[1,-2,2147483647]", write(new int[] { 1, -2,
+				Integer.MAX_VALUE }));
+		assertEquals("[9223372036854775807]",
+				write(new long[] { Long.MAX_VALUE }));
+		assertEquals("[3,4]", write(new short[] { 3, 4 }));
+		assertEquals("[[1],[2,3]]", write(new int[][] { { 1 }, { 2, 3 } }));
+		assertEquals("[\"a\",null,1]", write(new Object[] { "a", null, 1 }));
+	}
+
+	public void testEmptyArrays() throws IOException
+	{
+		assertEquals("[]", write(new int[0]));
+		assertEquals("[]", write(new long[0]));
+		assertEquals("[]", write(new double[0]));
+		assertEquals("[]", write(new boolean[0]));
+		assertEquals("[]", write(new char[0]));
+		assertEquals("[]", write(new String[0]));
+		assertEquals("[[]]", write(new int[][] { {} }));
+	}
+
+	public void testLazySources() throws IOException
+	{
+		assertEquals("[1,2,3]", write(Arrays.asList(1, 2, 3).iterator()));
+		assertEquals("[\"a\",\"b\"]", write(Stream.of("a", "b")));
+		assertEquals("[0,1,2]", write(IntStream.range(0, 3)));
+		assertEquals("[1,2]", write(Arrays.asList(1, 2).spliterator()));
+		assertEquals("[]", write(Collections.emptyIterator()));
+		assertEquals("[[1],[]]", write(Stream.of(Stream.of(1), Stream
+				.empty())));
+
+		final Iterable<String> iterable = new Iterable<String>()
+		{
+			@Override
+			public Iterator<String> iterator()
+			{
+				return Arrays.asList("x", "y").iterator();
+			}
+		};
+
+		assertEquals("[\"x\",\"y\"]", write(iterable));
+	}
+
+	public void testIterablesWrittenAsValues() throws IOException
+	{
+		assertEquals("x", write(Paths.get("x")));
+		assertEquals("{\"name\":\"rb\"}", write(new IterableMappedStub()));
+	}
+
+	public void testIterablesDecidedByAnnotation() throws IOException
+	{
+		final Iterable<String> iterable = new Iterable<String>()
+		{
+			@Override
+			public Iterator<String> iterator()
+			{
+				return Arrays.asList("x").iterator();
+			}
+		};
+
+		for (final Object o : new Object[] { iterable,
+				new IterableMappedStub() })
+		{
+			final StringWriter w = new StringWriter();
+
+			final JSONOut out = new JSONOut(w);
+
+			out.setFieldReader(x -> Collections.singletonList(
+					new Field("custom", 1)).iterator());
+			out.write(o);
+
+			assertEquals(o == iterable ? "[\"x\"]" : "{\"custom\":1}", w
+					.toString());
+		}
+	}
+
+	public void testStreamClosed() throws IOException
+	{
+		final boolean[] closed = new boolean[1];
+
+		assertEquals("[1]", write(Stream.of(1).onClose(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				closed[0] = true;
+			}
+		})));
+
+		assertTrue(closed[0]);
+	}
+
+	public void testFlushInterval() throws IOException
+	{
+		final int[] flushes = new int[1];
+
+		final StringWriter w = new StringWriter()
+		{
+			@Override
+			public void flush()
+			{
+				++flushes[0];
+			}
+		};
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.setFlushInterval(10);
+		jm.write(IntStream.range(0, 95));
+
+		assertEquals(9, flushes[0]);
+		assertTrue(w.toString().endsWith(",93,94]"));
+
+		jm.setFlushInterval(0);
+		jm.write(IntStream.range(0, 95));
+
+		assertEquals(9, flushes[0]);
+	}
+
+	private static String writeParallel(final Object o, final ForkJoinPool pool)
+			throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.setParallelPool(pool);
+		jm.setParallelChunkSize(7);
+		jm.write(o);
+
+		return w.toString();
+	}
+
+	public void testParallel() throws IOException
+	{
+		final ForkJoinPool pool = new ForkJoinPool(4);
+
+		try
+		{
+			for (final int n : new int[] { 0, 1, 7, 8, 14, 15, 100, 1001 })
+			{
+				final List<Object> list = new ArrayList<Object>();
+				final Object[] objects = new Object[n];
+				final double[] doubles = new double[n];
+				final float[] floats = new float[n];
+				final int[] ints = new int[n];
+				final long[] longs = new long[n];
+				final short[] shorts = new short[n];
+				final byte[] bytes = new byte[n];
+				final char[] chars = new char[n];
+				final boolean[] booleans = new boolean[n];
+
+				for (int i = 0; i < n; i++)
+				{
+					objects[i] = i % 3 == 0 ? new PrimitiveTypesStub()
+							: i % 3 == 1 ? "s\t" + i : Arrays.asList(i, null);
+					list.add(objects[i]);
+					doubles[i] = i / 3.0;
+					floats[i] = i / 7f;
+					ints[i] = i * 1000003;
+					longs[i] = i * 1000000007L;
+					shorts[i] = (short) i;
+					bytes[i] = (byte) i;
+					chars[i] = (char) ('a' + i % 26);
+					booleans[i] = i % 2 == 0;
+				}
+
+				for (final Object o : new Object[] { list, objects, doubles,
+						floats, ints, longs, shorts, bytes, chars, booleans,
+						Collections.singletonMap("nested", list) })
+				{
+					assertEquals(write(o), writeParallel(o, pool));
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	public void testParallelException()
+	{
+		final ForkJoinPool pool = new ForkJoinPool(2);
+
+		final JSONOut jm = new JSONOut(new StringWriter());
+
+		jm.setParallelPool(pool);
+		jm.setParallelChunkSize(2);
+		jm.register(String.class, new JSONSerializer<String>()
+		{
+			@Override
+			public void write(final String o, final JSONOut out)
+					throws IOException
+			{
+				if ("boom".equals(o))
+				{
+					throw new IOException(o);
+				}
+
+				out.writeRaw("0");
+			}
+		});
+
+		try
+		{
+			jm.write(new String[] { "a", "b", "c", "d", "boom", "e" });
+			fail();
+		}
+		catch (final IOException e)
+		{
+			assertEquals("boom", e.getMessage());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	public void testParallelChunkSize()
+	{
+		try
+		{
+			new JSONOut(new StringWriter()).setParallelChunkSize(0);
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	public void testParallelFlushInterval() throws IOException
+	{
+		final ForkJoinPool pool = new ForkJoinPool(2);
+
+		final int[] flushes = new int[1];
+
+		final StringWriter w = new StringWriter()
+		{
+			@Override
+			public void flush()
+			{
+				++flushes[0];
+			}
+		};
+
+		final JSONOut jm = new JSONOut(w);
+
+		jm.setParallelPool(pool);
+		jm.setParallelChunkSize(10);
+
+		try
+		{
+			/*
+			 * 95 elements in chunks of 10: a flush after every third chunk.
+			 */
+			jm.setFlushInterval(25);
+			jm.write(new int[95]);
+
+			assertEquals(3, flushes[0]);
+
+			jm.setFlushInterval(0);
+			jm.write(new int[95]);
+
+			assertEquals(3, flushes[0]);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
 }
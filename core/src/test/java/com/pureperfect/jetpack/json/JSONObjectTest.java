@@ -0,0 +1,140 @@
+/*
+ * Copyright [2008] PurePerfect.com
+ * Licensed under the Apache License, Version 2.0 (the "License"); 
+ * you may not use this file except in compliance with the License. 
+ * 
+ * You may obtain a copy of the License at 
+ * 		http://www.apache.org/licenses/LICENSE-2.0 
+ * 
+ * Unless required by applicable law or agreed to in writing, 
+ * software distributed under the License is distributed on an 
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, 
+ * either express or implied. 
+ * 
+ * See the License for the specific language governing permissions
+ * and limitations under the License. 
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import com.pureperfect.jetpack.TypeConverter;
+import com.pureperfect.jetpack.json.JSONField;
+import com.pureperfect.jetpack.json.JSONObject;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @since 2.0
+ * @version 2.0
+ */
+public class JSONObjectTest extends TestCase
+{
+	public void testToText()
+	{
+		final JSONObject obj = new JSONObject();
+
+		final JSONField one = new JSONField("one", "one");
+		final JSONField two = new JSONField("two", 2);
+
+		obj.add(one);
+		obj.add(two);
+
+		assertEquals("{\"one\":\"one\",\"two\":2}", obj.toText().toString());
+	}
+
+	public void testToTextUsesConverter()
+	{
+		final JSONObject obj = new JSONObject();
+
+		obj.add(new JSONField("none", null));
+
+		final JSONTypeConverter converter = new JSONTypeConverter()
+		{
+			@Override
+			public CharSequence getNull()
+			{
+				return "\"n/a\"";
+			}
+		};
+
+		assertEquals("{\"none\":null}", obj.toText().toString());
+		assertEquals("{\"none\":\"n/a\"}", obj.toText(converter).toString());
+	}
+
+	public void testWriteTo() throws IOException
+	{
+		final JSONObject inner = new JSONObject();
+
+		inner.add(new JSONField("q\"uote", "line\nbreak"));
+		inner.add(new JSONField("d", 0.1));
+
+		final JSONArray<Object> array = new JSONArray<Object>();
+
+		array.add(inner);
+		array.add("s");
+		array.add(Arrays.asList(1, 2));
+
+		final JSONObject outer = new JSONObject();
+
+		outer.add(new JSONField("array", array));
+		outer.add(new JSONField("object", inner));
+
+		final String text = "{\"q\\\"uote\":\"line\\nbreak\",\"d\":0.1}";
+
+		final String expected = "{\"array\":[" + text + ",\"s\",[1,2]],"
+				+ "\"object\":" + text + "}";
+
+		assertEquals(expected, outer.toText().toString());
+
+		final StringBuilder builder = new StringBuilder();
+
+		outer.writeTo(builder);
+
+		assertEquals(expected, builder.toString());
+
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(Arrays.asList(outer, array));
+
+		assertEquals("[" + expected + ",[" + text + ",\"s\",[1,2]]]", w
+				.toString());
+	}
+
+	public void testDefaultWriteTo() throws IOException
+	{
+		/*
+		 * Only implements the methods JSONData had before writeTo.
+		 */
+		final JSONData data = new JSONData()
+		{
+			@Override
+			public CharSequence toText()
+			{
+				return this.toText(DEFAULT_TYPE_CONVERTER);
+			}
+
+			@Override
+			public CharSequence toText(final TypeConverter converter)
+			{
+				return "{\"a\":1}";
+			}
+		};
+
+		final StringBuilder builder = new StringBuilder();
+
+		data.writeTo(builder);
+
+		assertEquals("{\"a\":1}", builder.toString());
+
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(Arrays.asList(data, data));
+
+		assertEquals("[{\"a\":1},{\"a\":1}]", w.toString());
+	}
+}
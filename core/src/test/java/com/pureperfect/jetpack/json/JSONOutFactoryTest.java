@@ -0,0 +1,189 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.LambdaAnnotationReader;
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONOutFactoryTest extends TestCase
+{
+	private static final JSONSerializer<Number> HEX = new JSONSerializer<Number>()
+	{
+		@Override
+		public void write(final Number o, final JSONOut out)
+				throws IOException
+		{
+			out.writeRaw("\"0x" + Long.toHexString(o.longValue()) + "\"");
+		}
+	};
+
+	private static String write(final JSONOutFactory factory, final Object o)
+			throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		factory.create(w).write(o);
+
+		return w.toString();
+	}
+
+	public void testDefaults()
+	{
+		final JSONOut plain = new JSONOut(new StringWriter());
+		final JSONOut created = JSONOutFactory.DEFAULT
+				.create(new StringWriter());
+
+		assertSame(plain.getFieldReader(), created.getFieldReader());
+		assertSame(plain.getTypeConverter(), created.getTypeConverter());
+		assertSame(plain.getCharFormat(), created.getCharFormat());
+		assertFalse(created.isGenerateSerializers());
+		assertEquals(0, created.getFlushInterval());
+		assertNull(created.getParallelPool());
+		assertEquals(JSONOut.DEFAULT_PARALLEL_CHUNK_SIZE, created
+				.getParallelChunkSize());
+	}
+
+	public void testSettings() throws IOException
+	{
+		final LambdaAnnotationReader reader = new LambdaAnnotationReader(
+				JSON.class);
+
+		final JSONOutFactory factory = JSONOutFactory.builder().fieldReader(
+				reader).flushInterval(5).parallelChunkSize(9)
+				.generateSerializers(true).build();
+
+		final JSONOut out = factory.create(new ByteArrayOutputStream());
+
+		assertSame(reader, out.getFieldReader());
+		assertEquals(5, out.getFlushInterval());
+		assertEquals(9, out.getParallelChunkSize());
+		assertTrue(out.isGenerateSerializers());
+
+		final MappedTypeStub o = new MappedTypeStub();
+
+		o.setId(23);
+
+		assertEquals(write(JSONOutFactory.DEFAULT, o), write(factory, o));
+	}
+
+	public void testRegisteredSerializers() throws IOException
+	{
+		final JSONOutFactory.Builder builder = JSONOutFactory.builder()
+				.register(Integer.class, HEX);
+
+		final JSONOutFactory factory = builder.build();
+
+		builder.register(Long.class, HEX);
+
+		assertEquals("[\"0xff\",255]", write(factory, Arrays.asList(255,
+				255L)));
+
+		final StringWriter w = new StringWriter();
+
+		final JSONOut out = factory.create(w);
+
+		out.register(Long.class, HEX);
+		out.write(Arrays.asList(255, 255L));
+
+		assertEquals("[\"0xff\",\"0xff\"]", w.toString());
+		assertEquals("[\"0xff\",255]", write(factory, Arrays.asList(255,
+				255L)));
+	}
+
+	public void testInvalidSettings()
+	{
+		try
+		{
+			JSONOutFactory.builder().flushInterval(-1);
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			JSONOutFactory.builder().parallelChunkSize(0);
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	public void testSharedBetweenThreads() throws Exception
+	{
+		final JSONOutFactory factory = JSONOutFactory.builder().register(
+				Integer.class, HEX).build();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try
+		{
+			final List<Future<String>> results = new ArrayList<Future<String>>();
+
+			for (int i = 0; i < 200; ++i)
+			{
+				final int id = i;
+
+				results.add(executor.submit(new Callable<String>()
+				{
+					@Override
+					public String call() throws IOException
+					{
+						final MappedTypeStub o = new MappedTypeStub();
+
+						o.setId(id);
+
+						return write(factory, Arrays.asList(o, (long) id));
+					}
+				}));
+			}
+
+			for (int i = 0; i < results.size(); ++i)
+			{
+				assertTrue(results.get(i).get().contains(
+						"\"id\":\"0x" + Integer.toHexString(i) + "\""));
+				assertTrue(results.get(i).get().endsWith("," + i + "]"));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
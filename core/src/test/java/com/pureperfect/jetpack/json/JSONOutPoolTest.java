@@ -0,0 +1,189 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONOutPoolTest extends TestCase
+{
+	public void testReset() throws IOException
+	{
+		final ByteArrayOutputStream first = new ByteArrayOutputStream();
+
+		final JSONOut out = new JSONOut(first);
+
+		out.write("a");
+		out.flush();
+
+		final ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+		out.reset(second);
+		out.write(1);
+		out.flush();
+
+		final StringWriter third = new StringWriter();
+
+		out.reset(third);
+		out.write(true);
+
+		final ByteArrayOutputStream fourth = new ByteArrayOutputStream();
+
+		out.reset(fourth);
+		out.write(Arrays.asList("x", "\u00e9"));
+		out.flush();
+
+		assertEquals("\"a\"", first.toString("UTF-8"));
+		assertEquals("1", second.toString("UTF-8"));
+		assertEquals("true", third.toString());
+		assertEquals("[\"x\",\"\u00e9\"]", fourth.toString("UTF-8"));
+	}
+
+	public void testResetDiscardsUnflushed() throws IOException
+	{
+		final ByteArrayOutputStream first = new ByteArrayOutputStream();
+
+		final JSONOut out = new JSONOut(first);
+
+		out.write("lost");
+
+		final ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+		out.reset(second);
+		out.write("kept");
+		out.flush();
+
+		assertEquals(0, first.size());
+		assertEquals("\"kept\"", second.toString("UTF-8"));
+	}
+
+	public void testReuse() throws IOException
+	{
+		final JSONOutPool pool = new JSONOutPool(1);
+
+		final JSONOut a = pool.acquire(new ByteArrayOutputStream());
+		final JSONOut b = pool.acquire(new ByteArrayOutputStream());
+
+		assertNotSame(a, b);
+
+		a.setFlushInterval(3);
+
+		pool.release(a);
+		pool.release(b);
+
+		assertEquals(1, pool.getIdle());
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final JSONOut c = pool.acquire(bytes);
+
+		assertSame(a, c);
+		assertEquals(3, c.getFlushInterval());
+		assertEquals(0, pool.getIdle());
+
+		c.write(7);
+		c.flush();
+
+		assertEquals("7", bytes.toString("UTF-8"));
+	}
+
+	public void testPrefill() throws IOException
+	{
+		final JSONOutPool pool = new JSONOutPool(3);
+
+		assertEquals(0, pool.getIdle());
+		assertEquals(3, pool.prefill());
+		assertEquals(3, pool.getIdle());
+		assertEquals(0, pool.prefill());
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final JSONOut out = pool.acquire(bytes);
+
+		assertEquals(2, pool.getIdle());
+
+		out.write("warm");
+		out.flush();
+
+		assertEquals("\"warm\"", bytes.toString("UTF-8"));
+	}
+
+	public void testConcurrentUse() throws Exception
+	{
+		final JSONOutPool pool = new JSONOutPool(2);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try
+		{
+			final List<Future<String>> results = new ArrayList<Future<String>>();
+
+			for (int i = 0; i < 200; ++i)
+			{
+				final int id = i;
+
+				results.add(executor.submit(new Callable<String>()
+				{
+					@Override
+					public String call() throws IOException
+					{
+						final StringWriter w = new StringWriter();
+
+						final JSONOut out = pool.acquire(w);
+
+						try
+						{
+							out.write(Arrays.asList(id, "n" + id));
+							out.flush();
+						}
+						finally
+						{
+							pool.release(out);
+						}
+
+						return w.toString();
+					}
+				}));
+			}
+
+			for (int i = 0; i < results.size(); ++i)
+			{
+				assertEquals("[" + i + ",\"n" + i + "\"]", results.get(i)
+						.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+}
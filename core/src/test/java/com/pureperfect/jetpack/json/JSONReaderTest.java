@@ -0,0 +1,377 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONReaderTest extends TestCase
+{
+	private static List<String> tokens(final JSONReader r)
+			throws IOException
+	{
+		final List<String> result = new ArrayList<String>();
+
+		for (JSONToken t = r.next(); t != null; t = r.next())
+		{
+			result.add(r.getText() == null ? t.toString() : t + " "
+					+ r.getText());
+		}
+
+		return result;
+	}
+
+	public void testTokens() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader(
+				"{\"a\" : [1, -2.5, \"x\\ty\", true, false, null, {}], \"b\":[]}"));
+
+		final String[] expected = { "START_OBJECT", "FIELD_NAME a",
+				"START_ARRAY", "VALUE_NUMBER 1", "VALUE_NUMBER -2.5",
+				"VALUE_STRING x\ty", "VALUE_TRUE true", "VALUE_FALSE false",
+				"VALUE_NULL null", "START_OBJECT", "END_OBJECT", "END_ARRAY",
+				"FIELD_NAME b", "START_ARRAY", "END_ARRAY", "END_OBJECT" };
+
+		assertEquals(Arrays.asList(expected), tokens(r));
+		assertNull(r.getToken());
+		assertEquals(0, r.getDepth());
+	}
+
+	public void testSmallBuffers() throws IOException
+	{
+		final List<String> expected = tokens(new JSONReader(new StringReader(
+				JSONUnmarshallerTest.DOCUMENT)));
+
+		for (int size = 1; size < 40; ++size)
+		{
+			assertEquals(String.valueOf(size), expected, tokens(new JSONReader(
+					new StringReader(JSONUnmarshallerTest.DOCUMENT), size)));
+		}
+	}
+
+	public void testNumbers() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader(
+				"[7, -12345678901, 123456789012345678901234567890, 1.5e3]"));
+
+		assertEquals(JSONToken.START_ARRAY, r.next());
+
+		assertEquals(JSONToken.VALUE_NUMBER, r.next());
+		assertEquals(7, r.getInt());
+		assertEquals(7L, r.getLong());
+		assertEquals(Integer.valueOf(7), r.getNumber());
+
+		r.next();
+		assertEquals(-12345678901L, r.getLong());
+		assertEquals(Long.valueOf(-12345678901L), r.getNumber());
+
+		r.next();
+		assertEquals(new BigInteger("123456789012345678901234567890"), r
+				.getNumber());
+
+		r.next();
+		assertEquals(1500.0, r.getDouble());
+		assertEquals(1500L, r.getLong());
+		assertEquals(Double.valueOf(1500), r.getNumber());
+
+		try
+		{
+			r.getBoolean();
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+
+		assertEquals(JSONToken.END_ARRAY, r.next());
+
+		try
+		{
+			r.getLong();
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	public void testNumberGrammar() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader(
+				"[0, -0, 0.5, -1E+2, 1e-2, 10]"));
+
+		final String[] expected = { "START_ARRAY", "VALUE_NUMBER 0",
+				"VALUE_NUMBER -0", "VALUE_NUMBER 0.5", "VALUE_NUMBER -1E+2",
+				"VALUE_NUMBER 1e-2", "VALUE_NUMBER 10", "END_ARRAY" };
+
+		assertEquals(Arrays.asList(expected), tokens(r));
+
+		for (final String s : new String[] { "[hello]", "[+1]", "[1.5d]",
+				"[01]", "[.5]", "[1.]", "[1e]", "[1e+]", "[-]", "[--1]",
+				"[0x1]", "[NaN]", "[Infinity]" })
+		{
+			final byte[] b = s.getBytes(StandardCharsets.UTF_8);
+
+			for (final JSONReader in : new JSONReader[] {
+					new JSONReader(new StringReader(s)), new JSONReader(b) })
+			{
+				assertEquals(JSONToken.START_ARRAY, in.next());
+
+				try
+				{
+					in.next();
+					fail(s);
+				}
+				catch (final MalformedJSONException e)
+				{
+					assertTrue(e.getMessage(), e.getMessage().contains(
+							s.substring(1, s.length() - 1)));
+				}
+			}
+
+			try
+			{
+				new JSONIn(new StringReader(s)).read();
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+
+			try
+			{
+				new NonBlockingJSONIn().feed(b, 0, b.length);
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	public void testOverflow() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader(
+				"[2147483648, 9223372036854775808, 1e19, -2147483648]"));
+
+		r.next();
+
+		r.next();
+		assertEquals(2147483648L, r.getLong());
+
+		try
+		{
+			r.getInt();
+			fail();
+		}
+		catch (final ArithmeticException e)
+		{
+			assertTrue(e.getMessage().contains("2147483648"));
+		}
+
+		r.next();
+
+		try
+		{
+			r.getLong();
+			fail();
+		}
+		catch (final ArithmeticException e)
+		{
+			assertTrue(e.getMessage().contains("9223372036854775808"));
+		}
+
+		r.next();
+
+		try
+		{
+			r.getLong();
+			fail();
+		}
+		catch (final ArithmeticException e)
+		{
+			// expected
+		}
+
+		r.next();
+		assertEquals(Integer.MIN_VALUE, r.getInt());
+	}
+
+	public void testBytes() throws IOException
+	{
+		final String document = JSONUnmarshallerTest.DOCUMENT
+				+ "[\"\u00e9\u20ac\ud83d\ude00\", 12345678901]";
+
+		final byte[] utf8 = document.getBytes(StandardCharsets.UTF_8);
+
+		final List<String> expected = tokens(new JSONReader(new StringReader(
+				document)));
+
+		assertEquals(expected, tokens(new JSONReader(utf8)));
+		assertEquals(expected, tokens(new JSONReader(
+				new ByteArrayInputStream(utf8))));
+
+		for (int size = 1; size < 40; ++size)
+		{
+			assertEquals(String.valueOf(size), expected, tokens(new JSONReader(
+					new ByteScanner(new ByteArrayInputStream(utf8), size))));
+		}
+	}
+
+	public void testDepthAndSkipChildren() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader(
+				"[{\"skip\":[[1],{\"x\":\"]\"}]},{\"id\":42}]"));
+
+		assertEquals(JSONToken.START_ARRAY, r.next());
+		assertEquals(1, r.getDepth());
+		assertEquals(JSONToken.START_OBJECT, r.next());
+		assertEquals(2, r.getDepth());
+
+		r.skipChildren();
+
+		assertEquals(JSONToken.END_OBJECT, r.getToken());
+		assertEquals(1, r.getDepth());
+
+		assertEquals(JSONToken.START_OBJECT, r.next());
+		assertEquals(JSONToken.FIELD_NAME, r.next());
+		assertEquals("id", r.getText());
+		assertEquals(JSONToken.VALUE_NUMBER, r.next());
+		assertEquals(42L, r.getLong());
+		assertEquals(JSONToken.END_OBJECT, r.next());
+		assertEquals(JSONToken.END_ARRAY, r.next());
+		assertNull(r.next());
+	}
+
+	public void testConsecutiveDocuments() throws IOException
+	{
+		final JSONReader r = new JSONReader(new StringReader("[1]\n {}"));
+
+		assertEquals(JSONToken.START_ARRAY, r.next());
+		assertEquals(JSONToken.VALUE_NUMBER, r.next());
+		assertEquals(JSONToken.END_ARRAY, r.next());
+		assertEquals(JSONToken.START_OBJECT, r.next());
+		assertEquals(JSONToken.END_OBJECT, r.next());
+		assertNull(r.next());
+	}
+
+	public void testStreamsRecords() throws IOException
+	{
+		final int records = 100000;
+
+		final Reader in = new Reader()
+		{
+			private int record;
+
+			private String pending = "[";
+
+			@Override
+			public int read(final char[] b, final int off, final int len)
+			{
+				if (this.pending.isEmpty())
+				{
+					if (this.record > records)
+					{
+						return -1;
+					}
+
+					if (this.record == records)
+					{
+						this.pending = "]";
+					}
+					else
+					{
+						this.pending = (this.record == 0 ? "" : ",")
+								+ "{\"id\":" + this.record
+								+ ",\"name\":\"n\"}";
+					}
+
+					++this.record;
+				}
+
+				final int n = Math.min(len, this.pending.length());
+
+				this.pending.getChars(0, n, b, off);
+				this.pending = this.pending.substring(n);
+
+				return n;
+			}
+
+			@Override
+			public void close()
+			{
+				// nothing to close
+			}
+		};
+
+		final JSONReader r = new JSONReader(in);
+
+		long sum = 0;
+
+		for (JSONToken t = r.next(); t != null; t = r.next())
+		{
+			if (t == JSONToken.FIELD_NAME && "id".equals(r.getText()))
+			{
+				r.next();
+				sum += r.getLong();
+			}
+		}
+
+		assertEquals((long) records * (records - 1) / 2, sum);
+	}
+
+	public void testMalformed() throws IOException
+	{
+		for (final String s : new String[] { "1", "[1 2]", "{\"a\" 1}",
+				"{\"a\":1,}", "[1,]", "{1:2}", "[1," })
+		{
+			final JSONReader r = new JSONReader(new StringReader(s));
+
+			try
+			{
+				while (r.next() != null)
+				{
+					// read all
+				}
+
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.math.BigInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONSyntaxTest extends TestCase
+{
+	private static Object value(final String s)
+	{
+		return JSONSyntax.value(s.toCharArray(), 0, s.length());
+	}
+
+	public void testWhitespace()
+	{
+		for (final char c : " \t\n\r".toCharArray())
+		{
+			assertTrue(JSONSyntax.isWhitespace(c));
+			assertTrue(JSONSyntax.isDelimiter(c));
+		}
+
+		for (final char c : "\u000B\f\u001C\u001F\u00A0\u2028\u3000\0"
+				.toCharArray())
+		{
+			assertFalse(Integer.toHexString(c), JSONSyntax.isWhitespace(c));
+			assertFalse(Integer.toHexString(c), JSONSyntax.isDelimiter(c));
+		}
+	}
+
+	public void testEscape()
+	{
+		assertEquals('\n', JSONSyntax.escape('n'));
+		assertEquals('/', JSONSyntax.escape('/'));
+		assertEquals(JSONSyntax.UNICODE, JSONSyntax.escape('u'));
+		assertEquals(0xA, JSONSyntax.hexDigit('a'));
+
+		try
+		{
+			JSONSyntax.escape('x');
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			assertEquals("Invalid escape: \\x", e.getMessage());
+		}
+
+		try
+		{
+			JSONSyntax.hexDigit('g');
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+	}
+
+	public void testUTF8()
+	{
+		assertEquals(1, JSONSyntax.continuations(0xC2));
+		assertEquals(2, JSONSyntax.continuations(0xE2));
+		assertEquals(3, JSONSyntax.continuations(0xF0));
+
+		/*
+		 * Overlong, surrogate and beyond U+10FFFF.
+		 */
+		assertEquals(0xA0, JSONSyntax.secondMin(0xE0));
+		assertEquals(0x9F, JSONSyntax.secondMax(0xED));
+		assertEquals(0x8F, JSONSyntax.secondMax(0xF4));
+
+		for (final int lead : new int[] { 0x80, 0xC0, 0xC1, 0xF5, 0xFF })
+		{
+			try
+			{
+				JSONSyntax.continuations(lead);
+				fail(Integer.toHexString(lead));
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+
+		try
+		{
+			JSONSyntax.continuation(0xC0, JSONSyntax.CONTINUATION_MIN,
+					JSONSyntax.CONTINUATION_MAX);
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+	}
+
+	public void testLiterals()
+	{
+		assertNull(value("null"));
+		assertEquals(Boolean.TRUE, value("true"));
+		assertEquals(Boolean.FALSE, value("false"));
+		assertEquals(Integer.valueOf(-12), value("-12"));
+		assertEquals(Long.valueOf(12345678901L), value("12345678901"));
+		assertEquals(new BigInteger("123456789012345678901"),
+				value("123456789012345678901"));
+		assertEquals(Double.valueOf(1.5e3), value("1.5e3"));
+
+		assertFalse(JSONSyntax.isNumber("1.5d".toCharArray(), 0, 4));
+		assertTrue(JSONSyntax.isNumber("-0.5e+10".toCharArray(), 0, 8));
+
+		try
+		{
+			value("nul");
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			assertTrue(e.getMessage().contains("nul"));
+		}
+
+		try
+		{
+			value("");
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+	}
+}
@@ -18,10 +18,12 @@ package com.pureperfect.jetpack.json;
 
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
 import com.pureperfect.jetpack.TypeConverter;
+import com.pureperfect.jetpack.TypeWriter;
 import com.pureperfect.jetpack.json.JSONTypeConverter;
 
 /**
@@ -131,4 +133,58 @@ public class JSONTypeConverterTest extends TestCase
 
 		assertEquals("rubadubdub", converter.convert("rubadubdub"));
 	}
-}
\ No newline at end of file
+
+	private static String write(final long l)
+	{
+		final char[] buf = new char[TypeWriter.MAX_LENGTH + 3];
+
+		final int end = new JSONTypeConverter().write(l, buf, 3);
+
+		return new String(buf, 3, end - 3);
+	}
+
+	public void testWriteLong()
+	{
+		final long[] edges = new long[] { 0, 1, -1, 9, 10, 99, 100, 101,
+				Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L,
+				Integer.MIN_VALUE - 1L, Long.MAX_VALUE, Long.MIN_VALUE,
+				Long.MIN_VALUE + 1 };
+
+		for (final long l : edges)
+		{
+			assertEquals(String.valueOf(l), write(l));
+		}
+
+		long p = 1;
+
+		for (int i = 0; i < 19; ++i, p *= 10)
+		{
+			assertEquals(String.valueOf(p), write(p));
+			assertEquals(String.valueOf(p - 1), write(p - 1));
+			assertEquals(String.valueOf(-p), write(-p));
+		}
+
+		final Random r = new Random(23);
+
+		for (int i = 0; i < 10000; ++i)
+		{
+			final long l = r.nextLong() >> r.nextInt(64);
+
+			assertEquals(String.valueOf(l), write(l));
+		}
+	}
+
+	public void testWriteInt()
+	{
+		final TypeWriter writer = new JSONTypeConverter();
+
+		final char[] buf = new char[TypeWriter.MAX_LENGTH];
+
+		for (final int i : new int[] { 0, -7, 42, Integer.MIN_VALUE,
+				Integer.MAX_VALUE })
+		{
+			assertEquals(String.valueOf(i), new String(buf, 0, writer.write(
+					i, buf, 0)));
+		}
+	}
+}
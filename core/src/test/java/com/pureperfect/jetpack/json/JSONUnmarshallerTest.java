@@ -22,7 +22,9 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.io.StringReader;
 import java.io.Writer;
+import java.math.BigInteger;
 import java.util.Iterator;
 
 import junit.framework.TestCase;
@@ -749,7 +751,7 @@ public class JSONUnmarshallerTest extends TestCase
 			um.read();
 			fail();
 		}
-		catch (NumberFormatException e)
+		catch (MalformedJSONException e)
 		{
 			assertTrue(e.getMessage().contains("1234asdf56"));
 		}
@@ -770,7 +772,7 @@ public class JSONUnmarshallerTest extends TestCase
 			um.read();
 			fail();
 		}
-		catch (NumberFormatException e)
+		catch (MalformedJSONException e)
 		{
 			assertTrue(e.getMessage().contains("1234asdf56"));
 		}
@@ -792,7 +794,7 @@ public class JSONUnmarshallerTest extends TestCase
 			um.read();
 			fail();
 		}
-		catch (NumberFormatException e)
+		catch (MalformedJSONException e)
 		{
 			assertTrue(e.getMessage().contains("1234.asdf56"));
 		}
@@ -814,7 +816,7 @@ public class JSONUnmarshallerTest extends TestCase
 			um.read();
 			fail();
 		}
-		catch (NumberFormatException e)
+		catch (MalformedJSONException e)
 		{
 			assertTrue(e.getMessage().contains("1234.asdf56"));
 		}
@@ -1291,4 +1293,70 @@ public class JSONUnmarshallerTest extends TestCase
 		assertEquals("two", field2.getName().toString());
 		assertEquals("two", field2.getValue().toString());
 	}
-}
\ No newline at end of file
+
+	static final String DOCUMENT = "{\"name\":\"caf\\u00e9 \\\"q\\\" \\\\ \\/\\n\","
+			+ " \"flags\" : [true, false, null],\"n\":-12,\"d\":-1.5e3,"
+			+ "\"big\":123456789012345678901234567890,\"empty\":{},"
+			+ "\"nested\":[[],[{\"a\":\"\"}]]}";
+
+	static final String EXPECTED = "{\"name\":\"caf\u00e9 \\\"q\\\" \\\\ \\/\\n\","
+			+ "\"flags\":[true,false,null],\"n\":-12,\"d\":-1500.0,"
+			+ "\"big\":123456789012345678901234567890,\"empty\":{},"
+			+ "\"nested\":[[],[{\"a\":\"\"}]]}";
+
+	public void testSmallBuffers() throws IOException
+	{
+		for (int size = 1; size < 40; ++size)
+		{
+			final JSONObject o = (JSONObject) new JSONIn(new StringReader(
+					DOCUMENT), size).read();
+
+			assertEquals(String.valueOf(size), EXPECTED, o.toString());
+		}
+	}
+
+	public void testValues() throws IOException
+	{
+		final JSONObject o = (JSONObject) new JSONIn(new StringReader(
+				DOCUMENT)).read();
+
+		assertEquals("caf\u00e9 \"q\" \\ /\n", o.get(0).getValue());
+
+		@SuppressWarnings("unchecked")
+		final JSONArray<Object> flags = (JSONArray<Object>) o.get(1)
+				.getValue();
+
+		assertEquals(Boolean.TRUE, flags.get(0));
+		assertEquals(Boolean.FALSE, flags.get(1));
+		assertNull(flags.get(2));
+		assertEquals(Integer.valueOf(-12), o.get(2).getValue());
+		assertEquals(Double.valueOf(-1500), o.get(3).getValue());
+		assertEquals(new BigInteger("123456789012345678901234567890"), o
+				.get(4).getValue());
+	}
+
+	public void testConsecutiveValues() throws IOException
+	{
+		final Input um = new JSONIn(new StringReader("[1]\n{\"a\":2}  [3]"));
+
+		assertEquals("[1]", ((JSONData) um.read()).toText().toString());
+		assertEquals("{\"a\":2}", um.read().toString());
+		assertEquals("[3]", ((JSONData) um.read()).toText().toString());
+	}
+
+	public void testUnexpectedEnd() throws IOException
+	{
+		for (final String s : new String[] { "", "[1,", "{\"a\"", "[\"ab" })
+		{
+			try
+			{
+				new JSONIn(new StringReader(s)).read();
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+}
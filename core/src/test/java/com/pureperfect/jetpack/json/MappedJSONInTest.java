@@ -0,0 +1,173 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.Input;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class MappedJSONInTest extends TestCase
+{
+	private static final String TAIL = "[\"\u00e9\u20ac\ud83d\ude00\",12345678901]";
+
+	private File file;
+
+	@Override
+	public void setUp() throws Exception
+	{
+		this.file = File.createTempFile("jetpack", ".json");
+
+		final OutputStream out = new FileOutputStream(this.file);
+
+		try
+		{
+			out.write((JSONUnmarshallerTest.DOCUMENT + "\n" + TAIL)
+					.getBytes(StandardCharsets.UTF_8));
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	@Override
+	public void tearDown() throws Exception
+	{
+		this.file.delete();
+	}
+
+	private void assertDocument(final String message, final Input in)
+			throws IOException
+	{
+		assertEquals(message, JSONUnmarshallerTest.EXPECTED, in.read()
+				.toString());
+
+		@SuppressWarnings("unchecked")
+		final JSONArray<Object> a = (JSONArray<Object>) in.read();
+
+		assertEquals(message, "\u00e9\u20ac\ud83d\ude00", a.get(0));
+		assertEquals(message, Long.valueOf(12345678901L), a.get(1));
+	}
+
+	public void testFile() throws IOException
+	{
+		final Input in = new MappedJSONIn(this.file);
+
+		try
+		{
+			assertDocument("file", in);
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	public void testSmallWindows() throws IOException
+	{
+		for (int window = 1; window < 40; ++window)
+		{
+			final Input in = new MappedJSONIn(FileChannel.open(this.file
+					.toPath(), StandardOpenOption.READ), window);
+
+			try
+			{
+				assertDocument(String.valueOf(window), in);
+			}
+			finally
+			{
+				in.close();
+			}
+		}
+	}
+
+	public void testChannelPosition() throws IOException
+	{
+		final FileChannel channel = FileChannel.open(this.file.toPath(),
+				StandardOpenOption.READ);
+
+		channel.position(JSONUnmarshallerTest.DOCUMENT.length() + 1);
+
+		final Input in = new MappedJSONIn(channel, 7);
+
+		assertEquals(Long.valueOf(12345678901L),
+				((JSONArray<?>) in.read()).get(1));
+
+		in.close();
+
+		assertFalse(channel.isOpen());
+	}
+
+	public void testBuffer() throws IOException
+	{
+		final FileChannel channel = FileChannel.open(this.file.toPath(),
+				StandardOpenOption.READ);
+
+		try
+		{
+			final MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			assertDocument("buffer", new MappedJSONIn(buffer));
+
+			assertEquals(0, buffer.position());
+		}
+		finally
+		{
+			channel.close();
+		}
+
+		assertDocument("heap", new MappedJSONIn(ByteBuffer
+				.wrap((JSONUnmarshallerTest.DOCUMENT + TAIL)
+						.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	public void testWindowSize() throws IOException
+	{
+		final FileChannel channel = FileChannel.open(this.file.toPath(),
+				StandardOpenOption.READ);
+
+		try
+		{
+			new MappedJSONIn(channel, 1L << 31);
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class NDJSONOutTest extends TestCase
+{
+	/**
+	 * Counts the writes and flushes reaching the stream.
+	 */
+	private static class CountingStream extends ByteArrayOutputStream
+	{
+		int writes;
+
+		int flushes;
+
+		@Override
+		public synchronized void write(final byte[] b, final int off,
+				final int len)
+		{
+			this.writes++;
+			super.write(b, off, len);
+		}
+
+		@Override
+		public void flush()
+		{
+			this.flushes++;
+		}
+	}
+
+	public void testRecords() throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final NDJSONOut out = new NDJSONOut(bytes);
+
+		out.write(Collections.singletonMap("a", "x\ny"));
+		out.write(null);
+		out.writeAll(Arrays.asList(1, "two", Arrays.asList(3)));
+		out.close();
+
+		assertEquals("{\"a\":\"x\\ny\"}\nnull\n1\n\"two\"\n[3]\n",
+				bytes.toString("UTF-8"));
+	}
+
+	public void testRawLineBreaks() throws IOException
+	{
+		final String pretty = "{\n  \"a\": [1,\r\n 2]\n}";
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final NDJSONOut out = new NDJSONOut(bytes);
+
+		out.write(new RawJSON(pretty));
+		out.write(Collections.singletonList(new RawJSON(pretty
+				.getBytes(StandardCharsets.UTF_8))));
+		out.close();
+
+		final String[] lines = bytes.toString("UTF-8").split("\n", -1);
+
+		assertEquals(Arrays.asList("{   \"a\": [1,   2] }",
+				"[{   \"a\": [1,   2] }]", ""), Arrays.asList(lines));
+
+		final StringWriter w = new StringWriter();
+
+		final NDJSONOut chars = new NDJSONOut(w, 16, 0, TimeUnit.SECONDS);
+
+		chars.write(new RawJSON(pretty));
+		chars.close();
+
+		assertEquals("{   \"a\": [1,   2] }\n", w.toString());
+	}
+
+	public void testWriter() throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final NDJSONOut out = new NDJSONOut(w, 16, 0, TimeUnit.SECONDS);
+
+		out.writeAll(Arrays.asList("a", "b"));
+
+		assertEquals("", w.toString());
+
+		out.flush();
+
+		assertEquals("\"a\"\n\"b\"\n", w.toString());
+	}
+
+	public void testBlocks() throws IOException
+	{
+		final CountingStream stream = new CountingStream();
+
+		final NDJSONOut out = new NDJSONOut(stream, 1024, 0,
+				TimeUnit.SECONDS);
+
+		for (int i = 0; i < 1000; i++)
+		{
+			out.write(Integer.valueOf(i));
+		}
+
+		assertEquals(3, stream.writes);
+		assertEquals(0, stream.flushes);
+		assertTrue(stream.size() > 3000 && stream.size() <= 3072);
+
+		out.flush();
+
+		assertEquals(4, stream.writes);
+		assertEquals(1, stream.flushes);
+		assertEquals(3890, stream.size());
+	}
+
+	public void testMaxDelay() throws IOException
+	{
+		final CountingStream stream = new CountingStream();
+
+		final NDJSONOut out = new NDJSONOut(stream, 1024, 1,
+				TimeUnit.NANOSECONDS);
+
+		out.write("a");
+
+		assertEquals(1, stream.flushes);
+		assertEquals("\"a\"\n", stream.toString());
+
+		out.writeAll(Arrays.asList("b", "c"));
+
+		assertEquals(3, stream.flushes);
+	}
+
+	public void testNegativeDelay()
+	{
+		try
+		{
+			new NDJSONOut(new ByteArrayOutputStream(), 1024, -1,
+					TimeUnit.SECONDS);
+			fail();
+		}
+		catch (final IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class NonBlockingJSONInTest extends TestCase
+{
+	private static final String TAIL = "[\"\u00e9\u20ac\ud83d\ude00\\u0041\",12345678901, -0.5]";
+
+	private static byte[] utf8(final String s)
+	{
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(final Object o)
+	{
+		return ((JSONData) o).toText().toString();
+	}
+
+	public void testChunks() throws IOException
+	{
+		final byte[] document = utf8(JSONUnmarshallerTest.DOCUMENT + "\n"
+				+ TAIL);
+
+		final String tail = text(new JSONIn(new StringReader(TAIL)).read());
+
+		for (int size = 1; size < 40; ++size)
+		{
+			final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+			for (int off = 0; off < document.length; off += size)
+			{
+				in.feed(ByteBuffer.wrap(document, off, Math.min(size,
+						document.length - off)));
+			}
+
+			in.close();
+
+			assertEquals(String.valueOf(size), JSONUnmarshallerTest.EXPECTED,
+					text(in.read()));
+			assertEquals(String.valueOf(size), tail, text(in.read()));
+			assertNull(in.read());
+		}
+	}
+
+	public void testValuesAsSoonAsComplete()
+	{
+		final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+		in.feed(ByteBuffer.wrap(utf8("[1,{\"a\":\"b")));
+
+		assertNull(in.read());
+
+		in.feed(ByteBuffer.wrap(utf8("\"}]  {\"x\":tr")));
+
+		assertEquals("[1,{\"a\":\"b\"}]", text(in.read()));
+		assertNull(in.read());
+
+		in.feed(ByteBuffer.wrap(utf8("ue}")));
+
+		final JSONObject o = (JSONObject) in.read();
+
+		assertEquals(Boolean.TRUE, o.get(0).getValue());
+
+		in.close();
+	}
+
+	public void testDirectBuffer()
+	{
+		final byte[] document = utf8(TAIL);
+
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(document.length);
+
+		buffer.put(document);
+		buffer.flip();
+
+		final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+		in.feed(buffer);
+
+		assertFalse(buffer.hasRemaining());
+
+		@SuppressWarnings("unchecked")
+		final JSONArray<Object> a = (JSONArray<Object>) in.read();
+
+		assertEquals("\u00e9\u20ac\ud83d\ude00A", a.get(0));
+		assertEquals(Long.valueOf(12345678901L), a.get(1));
+		assertEquals(Double.valueOf(-0.5), a.get(2));
+	}
+
+	public void testSameAsJSONIn() throws IOException
+	{
+		final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+		final byte[] document = utf8(JSONUnmarshallerTest.DOCUMENT);
+
+		in.feed(document, 0, document.length);
+
+		assertEquals(text(new JSONIn(new StringReader(
+				JSONUnmarshallerTest.DOCUMENT)).read()), text(in.read()));
+	}
+
+	public void testByteOrderMark()
+	{
+		final byte[] document = utf8("\ufeff{\"a\":[1,2]}");
+
+		for (int split = 0; split <= 3; ++split)
+		{
+			final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+			for (int off = 0; off < split; ++off)
+			{
+				in.feed(document, off, 1);
+			}
+
+			in.feed(document, split, document.length - split);
+			in.close();
+
+			assertEquals("{\"a\":[1,2]}", text(in.read()));
+		}
+
+		final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+		in.feed(document, 0, 2);
+
+		try
+		{
+			in.close();
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			new NonBlockingJSONIn().feed(new byte[] { (byte) 0xEF,
+					(byte) 0xBB, '[' }, 0, 3);
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+	}
+
+	public void testInvalidUTF8()
+	{
+		final int[][] invalid = { { 0x80 }, { 0xC0, 0xAF },
+				{ 0xE0, 0x80, 0xAF }, { 0xED, 0xA0, 0x80 },
+				{ 0xF4, 0x90, 0x80, 0x80 }, { 0xE2, 0x82, 0x41 } };
+
+		for (final int[] sequence : invalid)
+		{
+			final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+			in.feed(utf8("[\""), 0, 2);
+
+			try
+			{
+				for (final int c : sequence)
+				{
+					in.feed(new byte[] { (byte) c }, 0, 1);
+				}
+
+				in.feed(utf8("\"]"), 0, 2);
+
+				fail(Arrays.toString(sequence));
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	public void testMalformed()
+	{
+		for (final String s : new String[] { "1", "[1 2]", "{\"a\" 1}",
+				"{\"a\":1,}", "[1,]", "{1:2}", "[\"\\x\"]" })
+		{
+			final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+			try
+			{
+				in.feed(utf8(s), 0, s.length());
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+
+		try
+		{
+			new NonBlockingJSONIn().feed(utf8("[1234asdf56]"), 0, 12);
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			assertTrue(e.getMessage().contains("1234asdf56"));
+		}
+	}
+
+	public void testUnexpectedEnd()
+	{
+		final NonBlockingJSONIn in = new NonBlockingJSONIn();
+
+		in.feed(utf8("[1]{\"a\":"), 0, 8);
+
+		try
+		{
+			in.close();
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+
+		assertEquals("[1]", text(in.read()));
+
+		try
+		{
+			in.feed(utf8("1}"), 0, 2);
+			fail();
+		}
+		catch (final IllegalStateException e)
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class RawJSONTest extends TestCase
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String FRAGMENT = "{\"name\":\"caf\u00e9\",\"tags\":[1,2]}";
+
+	public void testText() throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(Arrays.asList(new RawJSON(FRAGMENT), "{}",
+				Collections.singletonMap("k", new RawJSON("null"))));
+
+		assertEquals("[" + FRAGMENT + ",\"{}\",{\"k\":null}]", w.toString());
+	}
+
+	public void testBytes() throws IOException
+	{
+		final byte[] padded = ("xx" + FRAGMENT + "yy").getBytes(UTF_8);
+
+		final RawJSON raw = new RawJSON(padded, 2, padded.length - 4);
+
+		assertEquals(FRAGMENT, raw.toText().toString());
+
+		final String expected = "[" + FRAGMENT + "," + FRAGMENT + "]";
+
+		/*
+		 * Copied into the buffer, and written around a small one.
+		 */
+		for (final int size : new int[] { 8192, 4, 16 })
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			final JSONOut out = new JSONOut(new UTF8Writer(bytes, size));
+
+			out.write(new Object[] { raw, raw });
+			out.flush();
+
+			assertEquals(expected, new String(bytes.toByteArray(), UTF_8));
+
+			final ByteArrayOutputStream channel = new ByteArrayOutputStream();
+
+			final JSONOut nio = new JSONOut(Channels.newChannel(channel),
+					ByteBuffer.allocateDirect(size));
+
+			nio.write(new Object[] { raw, raw });
+			nio.flush();
+
+			assertEquals(expected, new String(channel.toByteArray(), UTF_8));
+		}
+
+		final StringWriter w = new StringWriter();
+
+		new JSONOut(w).write(new Object[] { raw, raw });
+
+		assertEquals(expected, w.toString());
+	}
+
+	public void testInDataTree()
+	{
+		final JSONObject obj = new JSONObject();
+
+		obj.add(new JSONField("raw", new RawJSON(FRAGMENT.getBytes(UTF_8))));
+		obj.add(new JSONField("text", FRAGMENT));
+
+		assertEquals("{\"raw\":" + FRAGMENT + ",\"text\":\""
+				+ FRAGMENT.replace("\"", "\\\"") + "\"}", obj.toText()
+				.toString());
+	}
+
+	public void testBounds()
+	{
+		try
+		{
+			new RawJSON(new byte[4], 2, 3);
+			fail();
+		}
+		catch (final IndexOutOfBoundsException e)
+		{
+			// expected
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class SchubfachTest extends TestCase
+{
+	private static String write(final double d)
+	{
+		final char[] buf = new char[40];
+
+		return new String(buf, 4, Schubfach.write(d, buf, 4) - 4);
+	}
+
+	private static String write(final float f)
+	{
+		final char[] buf = new char[40];
+
+		return new String(buf, 4, Schubfach.write(f, buf, 4) - 4);
+	}
+
+	/**
+	 * Check that the text reads back as the same value and that no number
+	 * with one digit less does. Like Double.toString(double) in recent JDKs,
+	 * the closest two digit number is preferred to a one digit number, e.g.
+	 * 4.9E-324 rather than 5E-324, so only longer numbers are checked.
+	 */
+	private static void assertShortest(final double d, final boolean isFloat)
+	{
+		final String s = isFloat ? write((float) d) : write(d);
+
+		final BigDecimal value = new BigDecimal(s);
+
+		if (isFloat)
+		{
+			assertEquals(s, (float) d, Float.parseFloat(s));
+		}
+		else
+		{
+			assertEquals(s, d, Double.parseDouble(s));
+		}
+
+		final int digits = value.stripTrailingZeros().precision();
+
+		if (digits > 2)
+		{
+			for (final RoundingMode mode : new RoundingMode[] {
+					RoundingMode.FLOOR, RoundingMode.CEILING })
+			{
+				final BigDecimal shorter = value.round(new MathContext(
+						digits - 1, mode));
+
+				if (isFloat)
+				{
+					assertFalse(s + " " + shorter,
+							shorter.floatValue() == (float) d);
+				}
+				else
+				{
+					assertFalse(s + " " + shorter, shorter.doubleValue() == d);
+				}
+			}
+		}
+	}
+
+	public void testFormat()
+	{
+		assertEquals("0.0", write(0.0));
+		assertEquals("-0.0", write(-0.0));
+		assertEquals("1.0", write(1.0));
+		assertEquals("-23.5", write(-23.5));
+		assertEquals("171.6", write(171.6));
+		assertEquals("0.1", write(0.1));
+		assertEquals("0.002", write(2.0E-3));
+		assertEquals("1200.0", write(1200.0));
+		assertEquals("10000000000.0", write(1.0E10));
+		assertEquals("100000000000000000000.0", write(1.0E20));
+		assertEquals("1.0E21", write(1.0E21));
+		assertEquals("1.0E23", write(1.0E23));
+		assertEquals("0.0000001", write(1.0E-7));
+		assertEquals("1.0E-8", write(1.0E-8));
+		assertEquals("1.234E-8", write(1.234E-8));
+		assertEquals("1.7976931348623157E308", write(Double.MAX_VALUE));
+		assertEquals("4.9E-324", write(Double.MIN_VALUE));
+		assertEquals("2.2250738585072014E-308", write(Double.MIN_NORMAL));
+		assertEquals("NaN", write(Double.NaN));
+		assertEquals("Infinity", write(Double.POSITIVE_INFINITY));
+		assertEquals("-Infinity", write(Double.NEGATIVE_INFINITY));
+	}
+
+	public void testFormatFloat()
+	{
+		assertEquals("0.0", write(0.0f));
+		assertEquals("171.6", write(171.6f));
+		assertEquals("0.1", write(0.1f));
+		assertEquals("3.4028235E38", write(Float.MAX_VALUE));
+		assertEquals("1.4E-45", write(Float.MIN_VALUE));
+		assertEquals("16777216.0", write(16777216.0f));
+	}
+
+	public void testRandomDoubles()
+	{
+		final Random r = new Random(23);
+
+		for (int i = 0; i < 100000; ++i)
+		{
+			final double d = Double.longBitsToDouble(r.nextLong());
+
+			if (!Double.isNaN(d) && !Double.isInfinite(d))
+			{
+				assertShortest(d, false);
+			}
+		}
+
+		for (int i = 0; i < 10000; ++i)
+		{
+			assertShortest(r.nextDouble() * 1000, false);
+			assertShortest(r.nextInt(), false);
+		}
+	}
+
+	public void testRandomFloats()
+	{
+		final Random r = new Random(23);
+
+		for (int i = 0; i < 100000; ++i)
+		{
+			final float f = Float.intBitsToFloat(r.nextInt());
+
+			if (!Float.isNaN(f) && !Float.isInfinite(f))
+			{
+				assertShortest(f, true);
+			}
+		}
+	}
+
+	public void testPowersOfTwo()
+	{
+		for (int e = -1074; e <= 1023; ++e)
+		{
+			assertShortest(Math.scalb(1.0, e), false);
+		}
+
+		for (int e = -149; e <= 127; ++e)
+		{
+			assertShortest(Math.scalb(1.0f, e), true);
+		}
+	}
+}
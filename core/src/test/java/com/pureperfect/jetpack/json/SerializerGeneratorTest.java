@@ -0,0 +1,119 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+import com.pureperfect.jetpack.mock.NestedArrayStub;
+import com.pureperfect.jetpack.mock.NestedMapStub;
+import com.pureperfect.jetpack.mock.NestedMappedType;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class SerializerGeneratorTest extends TestCase
+{
+	private static String write(final Object o, final boolean generate)
+			throws IOException
+	{
+		final StringWriter w = new StringWriter();
+
+		final JSONOut out = new JSONOut(w);
+
+		out.setGenerateSerializers(generate);
+		out.write(o);
+		out.flush();
+
+		return w.toString();
+	}
+
+	public void testGeneratesForPublicType()
+	{
+		assertNotNull(SerializerGenerator.forClass(MappedTypeStub.class));
+		assertSame(SerializerGenerator.forClass(MappedTypeStub.class),
+				SerializerGenerator.forClass(MappedTypeStub.class));
+	}
+
+	public void testNoSerializerForUnmappedType()
+	{
+		assertNull(SerializerGenerator.forClass(Object.class));
+		assertNull(SerializerGenerator.forClass(HiddenStub.class));
+	}
+
+	public void testSameOutputAsReflection() throws IOException
+	{
+		final MappedTypeStub p = new MappedTypeStub();
+
+		p.setId(23);
+		p.setName("rb");
+
+		final NestedMappedType nested = new NestedMappedType();
+
+		nested.setName("outer");
+		nested.setChild(p);
+
+		final Map<String, Integer> map = new TreeMap<String, Integer>();
+
+		map.put("one", 1);
+
+		final NestedMapStub withMap = new NestedMapStub();
+
+		withMap.setName("rb");
+		withMap.setMap(map);
+
+		final NestedArrayStub withArray = new NestedArrayStub();
+
+		withArray.setName("rb");
+		withArray.setArray(new int[] { 1, 2, 3 });
+
+		for (final Object o : new Object[] { p, nested, withMap, withArray })
+		{
+			assertEquals(write(o, false), write(o, true));
+		}
+	}
+
+	public void testPrimitiveGetters() throws IOException
+	{
+		assertEquals("{\"count\":3}", write(new PrimitiveStub(), true));
+	}
+
+	public static class PrimitiveStub
+	{
+		@JSON
+		public int getCount()
+		{
+			return 3;
+		}
+	}
+
+	static class HiddenStub
+	{
+		@JSON
+		public String getX()
+		{
+			return "x";
+		}
+	}
+}
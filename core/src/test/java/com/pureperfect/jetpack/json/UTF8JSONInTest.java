@@ -0,0 +1,226 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.Input;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class UTF8JSONInTest extends TestCase
+{
+	private static byte[] utf8(final String s)
+	{
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public void testSameAsJSONIn() throws IOException
+	{
+		final Object expected = new JSONIn(new StringReader(
+				JSONUnmarshallerTest.DOCUMENT)).read();
+
+		final Object o = new UTF8JSONIn(utf8(JSONUnmarshallerTest.DOCUMENT))
+				.read();
+
+		assertEquals(expected.toString(), o.toString());
+		assertEquals(JSONUnmarshallerTest.EXPECTED, o.toString());
+	}
+
+	public void testUnicodeWhitespaceRejected() throws IOException
+	{
+		final String document = "{\"a\":[1,\u30002]}";
+
+		try
+		{
+			new JSONIn(new StringReader(document)).read();
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			new UTF8JSONIn(utf8(document)).read();
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			// expected
+		}
+
+		assertEquals("{\"a\":[1,2]}", new UTF8JSONIn(
+				utf8("{\"a\":[1,\t\r\n 2]}")).read().toString());
+	}
+
+	public void testSmallBuffers() throws IOException
+	{
+		final byte[] document = utf8(JSONUnmarshallerTest.DOCUMENT
+				+ "[\"\u00e9\u20ac\ud83d\ude00\",12345678901]");
+
+		for (int size = 1; size < 40; ++size)
+		{
+			final Input in = new UTF8JSONIn(new ByteArrayInputStream(
+					document), size);
+
+			assertEquals(String.valueOf(size), JSONUnmarshallerTest.EXPECTED,
+					in.read().toString());
+
+			@SuppressWarnings("unchecked")
+			final JSONArray<Object> a = (JSONArray<Object>) in.read();
+
+			assertEquals(String.valueOf(size), "\u00e9\u20ac\ud83d\ude00", a
+					.get(0));
+			assertEquals(String.valueOf(size), Long.valueOf(12345678901L), a
+					.get(1));
+		}
+	}
+
+	public void testRange() throws IOException
+	{
+		final byte[] data = utf8("xx[1, \"a\"]yy");
+
+		@SuppressWarnings("unchecked")
+		final JSONArray<Object> a = (JSONArray<Object>) new UTF8JSONIn(data,
+				2, 8).read();
+
+		assertEquals(Integer.valueOf(1), a.get(0));
+		assertEquals("a", a.get(1));
+
+		try
+		{
+			new UTF8JSONIn(data, 10, 3);
+			fail();
+		}
+		catch (final IndexOutOfBoundsException e)
+		{
+			// expected
+		}
+	}
+
+	public void testMultiByteCharacters() throws IOException
+	{
+		final String value = "caf\u00e9 \u0800\uffff \ud800\udc00\udbff\udfff";
+
+		final JSONObject o = (JSONObject) new UTF8JSONIn(utf8("{\"" + value
+				+ "\":\"" + value + "\\n\"}")).read();
+
+		assertEquals(value, o.get(0).getName());
+		assertEquals(value + "\n", o.get(0).getValue());
+	}
+
+	public void testByteOrderMark() throws IOException
+	{
+		assertEquals("[true]", ((JSONData) new UTF8JSONIn(
+				utf8("\ufeff[true]")).read()).toText().toString());
+	}
+
+	public void testInvalidUTF8() throws IOException
+	{
+		final int[][] invalid = { { 0x80 }, { 0xC0, 0xAF }, { 0xC3 },
+				{ 0xE0, 0x80, 0xAF }, { 0xED, 0xA0, 0x80 },
+				{ 0xF0, 0x80, 0x80, 0xAF }, { 0xF4, 0x90, 0x80, 0x80 },
+				{ 0xF5, 0x80, 0x80, 0x80 }, { 0xE2, 0x82, 0x41 } };
+
+		for (final int[] sequence : invalid)
+		{
+			final byte[] data = new byte[sequence.length + 4];
+
+			data[0] = '[';
+			data[1] = '"';
+
+			for (int i = 0; i < sequence.length; ++i)
+			{
+				data[i + 2] = (byte) sequence[i];
+			}
+
+			data[data.length - 2] = '"';
+			data[data.length - 1] = ']';
+
+			try
+			{
+				new UTF8JSONIn(data).read();
+				fail(Arrays.toString(sequence));
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	public void testUnexpectedEnd() throws IOException
+	{
+		for (final String s : new String[] { "", "[1,", "{\"a\"", "[\"ab",
+				"[\"\u00e9" })
+		{
+			final byte[] data = utf8(s);
+
+			try
+			{
+				new UTF8JSONIn(data, 0, data.length - (s.endsWith("\u00e9")
+						? 1 : 0)).read();
+				fail(s);
+			}
+			catch (final MalformedJSONException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	public void testDoesNotReadPastValue() throws IOException
+	{
+		final PipedOutputStream out = new PipedOutputStream();
+
+		final InputStream in = new PipedInputStream(out);
+
+		out.write(utf8("{\"a\":[1,2]}"));
+		out.flush();
+
+		assertEquals("{\"a\":[1,2]}", new UTF8JSONIn(in).read().toString());
+
+		in.close();
+	}
+
+	public void testNumberFormat() throws IOException
+	{
+		try
+		{
+			new UTF8JSONIn(utf8("[1234asdf56]")).read();
+			fail();
+		}
+		catch (final MalformedJSONException e)
+		{
+			assertTrue(e.getMessage().contains("1234asdf56"));
+		}
+	}
+}
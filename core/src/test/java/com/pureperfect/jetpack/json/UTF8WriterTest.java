@@ -0,0 +1,172 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.mock.MappedTypeStub;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class UTF8WriterTest extends TestCase
+{
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final String[] SAMPLES = new String[] { "", "hello",
+			"caf\u00e9", "\u2603 snow", "\uD83D\uDE00 smile", "a\uD83Db",
+			"\uDE00", "end\uD83D" };
+
+	/**
+	 * What an OutputStreamWriter writes for the same characters.
+	 */
+	private static byte[] expected(final String s) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final Writer w = new OutputStreamWriter(bytes, UTF_8);
+
+		w.write(s);
+		w.close();
+
+		return bytes.toByteArray();
+	}
+
+	public void testStrings() throws IOException
+	{
+		for (final String s : SAMPLES)
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			final Writer w = new UTF8Writer(bytes);
+
+			w.write(s);
+			w.close();
+
+			assertTrue(s, Arrays.equals(expected(s), bytes.toByteArray()));
+		}
+	}
+
+	public void testCharsAndAppend() throws IOException
+	{
+		for (final String s : SAMPLES)
+		{
+			final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+			final Writer w = new UTF8Writer(bytes);
+
+			w.write(s.toCharArray());
+			w.append(new StringBuilder(s));
+			w.append(s, 0, s.length());
+
+			for (int i = 0; i < s.length(); ++i)
+			{
+				w.append(s.charAt(i));
+			}
+
+			w.close();
+
+			assertTrue(s, Arrays.equals(expected(s + s + s + s), bytes
+					.toByteArray()));
+		}
+	}
+
+	public void testSurrogatesAcrossWrites() throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final Writer w = new UTF8Writer(bytes);
+
+		w.write("a\uD83D");
+		w.write("\uDE00b");
+		w.close();
+
+		assertTrue(Arrays.equals(expected("a\uD83D\uDE00b"), bytes
+				.toByteArray()));
+	}
+
+	public void testSmallBuffer() throws IOException
+	{
+		final StringBuilder s = new StringBuilder();
+
+		for (int i = 0; i < 1000; ++i)
+		{
+			s.append(i % 7 == 0 ? "\u00e9" : i % 11 == 0 ? "\uD83D\uDE00"
+					: "x");
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final Writer w = new UTF8Writer(bytes, 5);
+
+		w.write(s.toString());
+		w.write(s.toString().toCharArray());
+		w.flush();
+
+		assertTrue(Arrays.equals(expected(s.toString() + s), bytes
+				.toByteArray()));
+	}
+
+	public void testBuffersUntilFlush() throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		final Writer w = new UTF8Writer(bytes);
+
+		w.write("abc");
+
+		assertEquals(0, bytes.size());
+
+		w.flush();
+
+		assertEquals("abc", new String(bytes.toByteArray(), UTF_8));
+	}
+
+	public void testJSONOut() throws IOException
+	{
+		final MappedTypeStub p = new MappedTypeStub();
+
+		p.setId(23);
+		p.setName("caf\u00e9 \"\uD83D\uDE00\"");
+
+		final ByteArrayOutputStream utf8 = new ByteArrayOutputStream();
+
+		final JSONOut out = new JSONOut(utf8);
+
+		out.write(p);
+		out.flush();
+
+		final ByteArrayOutputStream reference = new ByteArrayOutputStream();
+
+		final JSONOut ref = new JSONOut(new OutputStreamWriter(reference,
+				UTF_8));
+
+		ref.write(p);
+		ref.flush();
+
+		assertTrue(Arrays.equals(reference.toByteArray(), utf8.toByteArray()));
+	}
+}
@@ -14,31 +14,31 @@
  * See the License for the specific language governing permissions
  * and limitations under the License. 
  */
-package com.pureperfect.jetpack.json;
+package com.pureperfect.jetpack.mock;
 
-import com.pureperfect.jetpack.json.JSONField;
-import com.pureperfect.jetpack.json.JSONObject;
+import java.util.Arrays;
+import java.util.Iterator;
 
-import junit.framework.TestCase;
+import com.pureperfect.jetpack.json.JSON;
 
 /**
+ * A mapped type that can also be iterated.
  * 
  * @author J. Chris Folsom
- * @since 2.0
- * @version 2.0
+ * @version 2.0.2
+ * @since 2.0.2
  */
-public class JSONObjectTest extends TestCase
+public class IterableMappedStub implements Iterable<String>
 {
-	public void testToText()
+	@JSON
+	public String getName()
 	{
-		final JSONObject obj = new JSONObject();
-
-		final JSONField one = new JSONField("one", "one");
-		final JSONField two = new JSONField("two", 2);
-
-		obj.add(one);
-		obj.add(two);
+		return "rb";
+	}
 
-		assertEquals("{\"one\":\"one\",\"two\":2}", obj.toText().toString());
+	@Override
+	public Iterator<String> iterator()
+	{
+		return Arrays.asList("a", "b").iterator();
 	}
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ *
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.mock;
+
+import com.pureperfect.jetpack.json.JSON;
+
+/**
+ *
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class PrimitiveTypesStub
+{
+	@JSON
+	public boolean getBoolean()
+	{
+		return true;
+	}
+
+	@JSON
+	public byte getByte()
+	{
+		return -8;
+	}
+
+	@JSON
+	public char getChar()
+	{
+		return 'c';
+	}
+
+	@JSON
+	public double getDouble()
+	{
+		return 171.6;
+	}
+
+	@JSON
+	public float getFloat()
+	{
+		return 171.6f;
+	}
+
+	@JSON
+	public int getInt()
+	{
+		return 171;
+	}
+
+	@JSON
+	public long getLong()
+	{
+		return 1L << 40;
+	}
+
+	@JSON
+	public short getShort()
+	{
+		return 1024;
+	}
+
+	@JSON
+	public String getString()
+	{
+		return "rb";
+	}
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates a <code>CompiledSerializer</code> for every class with getters
+ * annotated with <code>com.pureperfect.jetpack.json.JSON</code>, and registers
+ * the serializers as services so <code>JSONOut</code> finds them at runtime.
+ * The generated serializers write the same fields as the reflective field
+ * readers, sorted by field name as the default field reader writes them, so
+ * the output does not depend on whether the processor ran.
+ * 
+ * <p>
+ * Serializers are only generated for public, concrete classes whose mapped
+ * getters are all public instance methods named "get..." without parameters.
+ * Other classes are reported with a warning and are written with reflection
+ * at runtime.
+ * </p>
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+@SupportedAnnotationTypes(JSONProcessor.JSON)
+public class JSONProcessor extends AbstractProcessor
+{
+	static final String JSON = "com.pureperfect.jetpack.json.JSON";
+
+	static final String SERIALIZER = "com.pureperfect.jetpack.json.CompiledSerializer";
+
+	static final String SERVICE = "META-INF/services/" + SERIALIZER;
+
+	static final String SUFFIX = "JSONSerializer";
+
+	private final Set<String> generated = new TreeSet<String>();
+
+	private final Set<String> skipped = new TreeSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(final Set<? extends TypeElement> annotations,
+			final RoundEnvironment roundEnv)
+	{
+		if (roundEnv.processingOver())
+		{
+			if (!this.generated.isEmpty() || !this.skipped.isEmpty())
+			{
+				this.writeServices();
+			}
+
+			return false;
+		}
+
+		final Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+
+		for (final TypeElement annotation : annotations)
+		{
+			for (final Element e : roundEnv
+					.getElementsAnnotatedWith(annotation))
+			{
+				if (e.getKind() == ElementKind.METHOD)
+				{
+					types.add((TypeElement) e.getEnclosingElement());
+				}
+			}
+		}
+
+		for (final TypeElement type : types)
+		{
+			final List<ExecutableElement> getters = this.getters(type);
+
+			if (getters != null)
+			{
+				this.writeSerializer(type, getters);
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Get the mapped getters of a type sorted by field name, or
+	 * <code>null</code> if no serializer can be generated for it.
+	 */
+	private List<ExecutableElement> getters(final TypeElement type)
+	{
+		if (!isAccessible(type)
+				|| type.getKind() != ElementKind.CLASS
+				|| type.getModifiers().contains(Modifier.ABSTRACT))
+		{
+			this.skip(type, "it is not a public, concrete class");
+
+			return null;
+		}
+
+		final List<ExecutableElement> getters = new ArrayList<ExecutableElement>();
+
+		for (final Element e : type.getEnclosedElements())
+		{
+			if (e.getKind() != ElementKind.METHOD || !isMapped(e))
+			{
+				continue;
+			}
+
+			final ExecutableElement m = (ExecutableElement) e;
+
+			if (!m.getModifiers().contains(Modifier.PUBLIC)
+					|| m.getModifiers().contains(Modifier.STATIC)
+					|| !m.getParameters().isEmpty()
+					|| m.getReturnType().getKind() == TypeKind.VOID
+					|| m.getSimpleName().length() < 4
+					|| !m.getSimpleName().toString().startsWith("get"))
+			{
+				this.skip(type, m.getSimpleName()
+						+ "() is not a public getter");
+
+				return null;
+			}
+
+			getters.add(m);
+		}
+
+		getters.sort(Comparator.comparing(JSONProcessor::fieldName));
+
+		return getters;
+	}
+
+	/**
+	 * Get the name of the field for a getter, e.g. "name" for "getName()".
+	 */
+	private static String fieldName(final ExecutableElement m)
+	{
+		final String methodName = m.getSimpleName().toString();
+
+		return Character.toLowerCase(methodName.charAt(3))
+				+ methodName.substring(4);
+	}
+
+	private static boolean isMapped(final Element e)
+	{
+		for (final AnnotationMirror a : e
+				.getAnnotationMirrors())
+		{
+			if (((TypeElement) a.getAnnotationType().asElement())
+					.getQualifiedName().contentEquals(JSON))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static boolean isAccessible(final TypeElement type)
+	{
+		for (Element e = type; e instanceof TypeElement; e = e
+				.getEnclosingElement())
+		{
+			final TypeElement t = (TypeElement) e;
+
+			if (!t.getModifiers().contains(Modifier.PUBLIC))
+			{
+				return false;
+			}
+
+			if (t.getNestingKind() != NestingKind.TOP_LEVEL
+					&& (t.getNestingKind() != NestingKind.MEMBER || !t
+							.getModifiers().contains(Modifier.STATIC)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void skip(final TypeElement type, final String reason)
+	{
+		this.skipped.add(type.getQualifiedName().toString());
+
+		this.processingEnv.getMessager().printMessage(
+				Diagnostic.Kind.WARNING,
+				"No JSON serializer generated for " + type.getQualifiedName()
+						+ " because " + reason
+						+ "; it will be written with reflection.", type);
+	}
+
+	private void writeSerializer(final TypeElement type,
+			final List<ExecutableElement> getters)
+	{
+		final PackageElement pkg = this.processingEnv.getElementUtils()
+				.getPackageOf(type);
+
+		final String packageName = pkg.isUnnamed() ? "" : pkg
+				.getQualifiedName().toString();
+
+		final String typeName = type.getQualifiedName().toString();
+
+		final String simpleName = (packageName.isEmpty() ? typeName
+				: typeName.substring(packageName.length() + 1)).replace('.',
+				'_') + SUFFIX;
+
+		final String className = packageName.isEmpty() ? simpleName
+				: packageName + "." + simpleName;
+
+		final boolean generic = !type.getTypeParameters().isEmpty();
+
+		final StringBuilder src = new StringBuilder(1024);
+
+		src.append("/*\n * Generated by ").append(getClass().getName())
+				.append(". Do not edit.\n */\n");
+
+		if (!packageName.isEmpty())
+		{
+			src.append("package ").append(packageName).append(";\n\n");
+		}
+
+		if (generic)
+		{
+			src.append("@SuppressWarnings(\"rawtypes\")\n");
+		}
+
+		src.append("public final class ").append(simpleName);
+		src.append(" implements com.pureperfect.jetpack.json.CompiledSerializer<");
+		src.append(typeName).append(">\n{\n");
+
+		src.append("\t@Override\n\tpublic Class<").append(typeName);
+		src.append("> getType()\n\t{\n\t\treturn ").append(typeName);
+		src.append(".class;\n\t}\n\n");
+
+		src.append("\t@Override\n\tpublic void write(final ").append(typeName);
+		src.append(" o, final com.pureperfect.jetpack.json.JSONOut out)\n");
+		src.append("\t\t\tthrows java.io.IOException\n\t{\n");
+
+		char separator = '{';
+
+		for (final ExecutableElement m : getters)
+		{
+			src.append("\t\tout.writeRaw(\"").append(separator).append("\\\"");
+			src.append(fieldName(m));
+			src.append("\\\":\");\n");
+			src.append("\t\tout.write(o.").append(m.getSimpleName())
+					.append("());\n");
+
+			separator = ',';
+		}
+
+		src.append("\t\tout.writeRaw(\"}\");\n");
+
+		src.append("\t}\n}\n");
+
+		try
+		{
+			final JavaFileObject file = this.processingEnv.getFiler()
+					.createSourceFile(className, type);
+
+			final Writer w = file.openWriter();
+
+			try
+			{
+				w.write(src.toString());
+			}
+			finally
+			{
+				w.close();
+			}
+
+			this.generated.add(className);
+		}
+		catch (final IOException e)
+		{
+			this.processingEnv.getMessager().printMessage(
+					Diagnostic.Kind.ERROR,
+					"Could not write " + className + ": " + e.getMessage(),
+					type);
+		}
+	}
+
+	/**
+	 * Check whether an earlier registration is no longer valid: the
+	 * serializer or the type it writes no longer exists, or the type was
+	 * compiled again without a serializer.
+	 */
+	private boolean isStale(final String service)
+	{
+		if (this.generated.contains(service))
+		{
+			return false;
+		}
+
+		final TypeElement serializer = this.processingEnv.getElementUtils()
+				.getTypeElement(service);
+
+		if (serializer == null)
+		{
+			return true;
+		}
+
+		for (final TypeMirror i : serializer.getInterfaces())
+		{
+			final DeclaredType d = (DeclaredType) i;
+
+			if (((TypeElement) d.asElement()).getQualifiedName().contentEquals(
+					SERIALIZER)
+					&& d.getTypeArguments().size() == 1)
+			{
+				final TypeMirror type = d.getTypeArguments().get(0);
+
+				return type.getKind() != TypeKind.DECLARED
+						|| this.skipped.contains(((TypeElement) ((DeclaredType) type)
+								.asElement()).getQualifiedName().toString());
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Register the generated serializers, keeping the entries from an earlier
+	 * incremental compilation that are still valid.
+	 */
+	private void writeServices()
+	{
+		final Set<String> services = new TreeSet<String>(this.generated);
+
+		try
+		{
+			final FileObject existing = this.processingEnv.getFiler()
+					.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+
+			final BufferedReader r = new BufferedReader(new InputStreamReader(
+					existing.openInputStream(), StandardCharsets.UTF_8));
+
+			try
+			{
+				for (String line = r.readLine(); line != null; line = r
+						.readLine())
+				{
+					final String service = line.trim();
+
+					if (!service.isEmpty() && !this.isStale(service))
+					{
+						services.add(service);
+					}
+				}
+			}
+			finally
+			{
+				r.close();
+			}
+		}
+		catch (final IOException e)
+		{
+			// No earlier registrations.
+		}
+
+		try
+		{
+			final FileObject file = this.processingEnv.getFiler()
+					.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE);
+
+			final Writer w = new OutputStreamWriter(file.openOutputStream(),
+					StandardCharsets.UTF_8);
+
+			try
+			{
+				for (final String service : services)
+				{
+					w.write(service);
+					w.write('\n');
+				}
+			}
+			finally
+			{
+				w.close();
+			}
+		}
+		catch (final IOException e)
+		{
+			this.processingEnv.getMessager().printMessage(
+					Diagnostic.Kind.ERROR,
+					"Could not write " + SERVICE + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright [2008] PurePerfect.com Licensed under the Apache License, Version
+ * 2.0 (the "License"); you may not use this file except in compliance with the
+ * License.
+ * 
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * 
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pureperfect.jetpack.apt;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import junit.framework.TestCase;
+
+import com.pureperfect.jetpack.CachingAnnotationReader;
+import com.pureperfect.jetpack.Field;
+import com.pureperfect.jetpack.json.CompiledSerializer;
+import com.pureperfect.jetpack.json.JSON;
+import com.pureperfect.jetpack.json.JSONOut;
+
+/**
+ * 
+ * @author J. Chris Folsom
+ * @version 2.0.2
+ * @since 2.0.2
+ */
+public class JSONProcessorTest extends TestCase
+{
+	private static final String PERSON = "package sample;\n"
+			+ "import com.pureperfect.jetpack.json.JSON;\n"
+			+ "public class Person {\n"
+			+ "  public static String caller;\n"
+			+ "  @JSON public String getName() {\n"
+			+ "    caller = new Throwable().getStackTrace()[1].getClassName();\n"
+			+ "    return \"rb\";\n"
+			+ "  }\n"
+			+ "  @JSON public int getAge() { return 23; }\n"
+			+ "  @JSON public java.util.List<String> getTags() {"
+			+ " return java.util.Arrays.asList(\"a\", \"b\"); }\n"
+			+ "  public String getIgnored() { return \"x\"; }\n"
+			+ "  public static class Nested {\n"
+			+ "    @JSON public long getId() { return 7L; }\n" + "  }\n"
+			+ "}\n";
+
+	private static final String HIDDEN = "package sample;\n"
+			+ "import com.pureperfect.jetpack.json.JSON;\n"
+			+ "class Hidden {\n"
+			+ "  @JSON public String getName() { return \"h\"; }\n" + "}\n";
+
+	private static final String OTHER = "package sample;\n"
+			+ "import com.pureperfect.jetpack.json.JSON;\n"
+			+ "public class Other {\n"
+			+ "  @JSON public String getName() { return \"o\"; }\n" + "}\n";
+
+	private File dir;
+
+	private List<Diagnostic<? extends JavaFileObject>> diagnostics;
+
+	@Override
+	public void setUp() throws Exception
+	{
+		this.dir = Files.createTempDirectory("jetpack-apt").toFile();
+
+		this.diagnostics = this.compile("", new Source("sample/Person",
+				PERSON), new Source("sample/Hidden", HIDDEN));
+	}
+
+	private List<Diagnostic<? extends JavaFileObject>> compile(
+			final String classpath, final Source... sources) throws Exception
+	{
+		final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+		final DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<JavaFileObject>();
+
+		final String core = new File(JSONOut.class.getProtectionDomain()
+				.getCodeSource().getLocation().toURI()).getPath();
+
+		final JavaCompiler.CompilationTask task = compiler.getTask(null,
+				null, collector, Arrays.asList("-d", this.dir.getPath(),
+						"-classpath", core + classpath), null, Arrays
+						.asList(sources));
+
+		task.setProcessors(Arrays.asList(new JSONProcessor()));
+
+		final boolean success = task.call();
+
+		assertTrue(collector.getDiagnostics().toString(), success);
+
+		return collector.getDiagnostics();
+	}
+
+	@Override
+	public void tearDown() throws Exception
+	{
+		delete(this.dir);
+	}
+
+	private static void delete(final File f)
+	{
+		final File[] children = f.listFiles();
+
+		if (children != null)
+		{
+			for (final File child : children)
+			{
+				delete(child);
+			}
+		}
+
+		f.delete();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void testGeneratedSerializer() throws Exception
+	{
+		final URLClassLoader loader = new URLClassLoader(
+				new URL[] { this.dir.toURI().toURL() }, getClass()
+						.getClassLoader());
+
+		final Class<?> person = loader.loadClass("sample.Person");
+
+		final CompiledSerializer<Object> serializer = (CompiledSerializer<Object>) loader
+				.loadClass("sample.PersonJSONSerializer").newInstance();
+
+		assertSame(person, serializer.getType());
+
+		final StringWriter w = new StringWriter();
+
+		serializer.write(person.newInstance(), new JSONOut(w));
+
+		assertEquals("{\"age\":23,\"name\":\"rb\",\"tags\":[\"a\",\"b\"]}",
+				w.toString());
+
+		final CompiledSerializer<Object> nested = (CompiledSerializer<Object>) loader
+				.loadClass("sample.Person_NestedJSONSerializer")
+				.newInstance();
+
+		final StringWriter w2 = new StringWriter();
+
+		nested.write(loader.loadClass("sample.Person$Nested").newInstance(),
+				new JSONOut(w2));
+
+		assertEquals("{\"id\":7}", w2.toString());
+
+		loader.close();
+	}
+
+	public void testServicesRegistered() throws IOException
+	{
+		final List<String> services = Files.readAllLines(new File(this.dir,
+				JSONProcessor.SERVICE).toPath(), StandardCharsets.UTF_8);
+
+		assertEquals(Arrays.asList("sample.PersonJSONSerializer",
+				"sample.Person_NestedJSONSerializer"), services);
+	}
+
+	public void testWarnsForInaccessibleType()
+	{
+		final List<String> warnings = new ArrayList<String>();
+
+		for (final Diagnostic<? extends JavaFileObject> d : this.diagnostics)
+		{
+			if (d.getKind() == Diagnostic.Kind.WARNING)
+			{
+				warnings.add(d.getMessage(null));
+			}
+		}
+
+		assertEquals(1, warnings.size());
+		assertTrue(warnings.get(0).contains("sample.Hidden"));
+		assertFalse(new File(this.dir, "sample/HiddenJSONSerializer.class")
+				.exists());
+	}
+
+	public void testJSONOutUsesRegisteredSerializer() throws Exception
+	{
+		/*
+		 * Found through the class loader of the type, not the context class
+		 * loader.
+		 */
+		final URLClassLoader loader = new URLClassLoader(
+				new URL[] { this.dir.toURI().toURL() }, getClass()
+						.getClassLoader());
+
+		try
+		{
+			final Object person = loader.loadClass("sample.Person")
+					.newInstance();
+
+			final StringWriter compiled = new StringWriter();
+
+			new JSONOut(compiled).write(person);
+
+			assertEquals("sample.PersonJSONSerializer", caller(person));
+
+			final StringWriter reflected = new StringWriter();
+
+			final JSONOut out = new JSONOut(reflected);
+
+			out.setFieldReader(new CachingAnnotationReader(JSON.class));
+			out.write(person);
+
+			assertFalse("sample.PersonJSONSerializer".equals(caller(person)));
+
+			assertEquals(
+					"{\"age\":23,\"name\":\"rb\",\"tags\":[\"a\",\"b\"]}",
+					compiled.toString());
+			assertEquals(compiled.toString(), reflected.toString());
+		}
+		finally
+		{
+			loader.close();
+		}
+	}
+
+	public void testCustomFieldReaderBypassesSerializer() throws Exception
+	{
+		final URLClassLoader loader = new URLClassLoader(
+				new URL[] { this.dir.toURI().toURL() }, getClass()
+						.getClassLoader());
+
+		try
+		{
+			final StringWriter w = new StringWriter();
+
+			final JSONOut out = new JSONOut(w);
+
+			out.setFieldReader(o -> Collections.singletonList(
+					new Field("custom", 1)).iterator());
+			out.write(loader.loadClass("sample.Person").newInstance());
+
+			assertEquals("{\"custom\":1}", w.toString());
+		}
+		finally
+		{
+			loader.close();
+		}
+	}
+
+	public void testStaleServiceSkipped() throws Exception
+	{
+		this.addService("sample.GoneJSONSerializer");
+
+		new File(this.dir, "sample/Person$Nested.class").delete();
+
+		final URLClassLoader loader = new URLClassLoader(
+				new URL[] { this.dir.toURI().toURL() }, getClass()
+						.getClassLoader());
+
+		try
+		{
+			final Object person = loader.loadClass("sample.Person")
+					.newInstance();
+
+			final StringWriter w = new StringWriter();
+
+			new JSONOut(w).write(person);
+
+			assertEquals("{\"age\":23,\"name\":\"rb\",\"tags\":[\"a\",\"b\"]}",
+					w.toString());
+			assertEquals("sample.PersonJSONSerializer", caller(person));
+		}
+		finally
+		{
+			loader.close();
+		}
+	}
+
+	public void testStaleServicePruned() throws Exception
+	{
+		this.addService("sample.GoneJSONSerializer");
+
+		new File(this.dir, "sample/Person$Nested.class").delete();
+
+		this.compile(File.pathSeparator + this.dir.getPath(), new Source(
+				"sample/Other", OTHER));
+
+		final List<String> services = Files.readAllLines(new File(this.dir,
+				JSONProcessor.SERVICE).toPath(), StandardCharsets.UTF_8);
+
+		assertEquals(Arrays.asList("sample.OtherJSONSerializer",
+				"sample.PersonJSONSerializer"), services);
+	}
+
+	private void addService(final String service) throws IOException
+	{
+		Files.write(new File(this.dir, JSONProcessor.SERVICE).toPath(),
+				Collections.singletonList(service), StandardCharsets.UTF_8,
+				StandardOpenOption.APPEND);
+	}
+
+	/**
+	 * Get the class that last called Person.getName().
+	 */
+	private static String caller(final Object person) throws Exception
+	{
+		return (String) person.getClass().getField("caller").get(null);
+	}
+
+	private static class Source extends SimpleJavaFileObject
+	{
+		private final String code;
+
+		Source(final String name, final String code)
+		{
+			super(URI.create("string:///" + name + Kind.SOURCE.extension),
+					Kind.SOURCE);
+			this.code = code;
+		}
+
+		@Override
+		public CharSequence getCharContent(final boolean ignoreEncodingErrors)
+		{
+			return this.code;
+		}
+	}
+}